@@ -1,5 +1,7 @@
 package uk.ac.hud.postroom;
 
+import uk.ac.hud.postroom.util.*;
+
 /**
  * Enumeration of AddressModes and their mnemonics
  * @author Richard Walton (c0410542@hud.ac.uk)
@@ -36,6 +38,23 @@ public enum AddressMode {
     /** Postdecrement indirect - '@+' | 9 **/
     POSTINCREMENT_INDIRECT(9, "@+");
     
+    // AddressModes indexed by value
+    private static final AddressMode[] BY_VALUE = new AddressMode[10];
+    
+    // AddressModes keyed by mnemonic
+    private static final MnemonicTable<AddressMode> BY_MNEMONIC;
+    
+    static {
+        String[] mnemonics = new String[values().length];
+        
+        for(AddressMode addressMode : values()) {
+            BY_VALUE[addressMode.getValue()] = addressMode;
+            mnemonics[addressMode.ordinal()] = addressMode.getMnemonic();
+        }
+        
+        BY_MNEMONIC = new MnemonicTable<AddressMode>(mnemonics, values());
+    }
+    
     private int value;
     private String mnemonic;
     
@@ -71,14 +90,14 @@ public enum AddressMode {
      * @return AddressMode matching the given mnemonic
      */
     public static AddressMode getByMnemonic(String mnemonic) {
-        for(AddressMode addressMode : values()) {
-            if(addressMode.getMnemonic().equals(mnemonic)) {
-                return addressMode;
-            }
+        AddressMode addressMode = BY_MNEMONIC.get(mnemonic);
+        
+        if(addressMode == null) {
+            // Throw exception as no AddressMode matches the given mnemonic
+            throw new IllegalArgumentException("No AddressMode with mnemonic " + mnemonic);
         }
         
-        // Throw exception as no AddressMode matches the given mnemonic
-        throw new IllegalArgumentException("No AddressMode with mnemonic " + mnemonic);
+        return addressMode;
     }
     /**
      * Returns the AddressMode matching the given value
@@ -86,10 +105,8 @@ public enum AddressMode {
      * @return AddressMode matching the given value
      */
     public static AddressMode getByValue(int value) {
-        for(AddressMode addressMode : values()) {
-            if(addressMode.getValue() == value) {
-                return addressMode;
-            }
+        if(value >= 0 && value < BY_VALUE.length && BY_VALUE[value] != null) {
+            return BY_VALUE[value];
         }
         
         // Throw exception as no AddressMode matches the given value
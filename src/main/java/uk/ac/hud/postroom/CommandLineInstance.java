@@ -7,24 +7,44 @@ import uk.ac.hud.postroom.event.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class CommandLineInstance {
     
+    // Exit code used when execution exceeds a limit set by -l, -t or -w
+    private static final int LIMIT_EXCEEDED_EXIT_CODE = 2;
+    
     private SourceFile sourceFile;
     private String baseFileName;
     
     private Computer computer;
     private Assembler assembler;
     
+    private String computerFormat;
+    private int memorySize;
+    private boolean memorySizeSet;
+    private File memoryImage;
+    private File memoryDump;
+    private InstructionFormat instructionFormat;
+    
     private boolean machineCode;
     private boolean execute;
     private boolean trace;
+    private boolean codeReadOnly;
+    
+    private long instructionLimit;
+    private long timeLimit;
+    private long memoryWriteLimit;
+    
+    private volatile ExecutionLimit exceededLimit;
     
     public CommandLineInstance(String[] arguments) {
         
         machineCode = false;
         execute = false;
         trace = false;
+        memorySize = AbstractComputer.DEFAULT_MEMORY_SIZE;
+        instructionFormat = InstructionFormat.STANDARD;
         
         processArguments(arguments);
         
@@ -80,6 +100,71 @@ public class CommandLineInstance {
             processArguments(Arrays.copyOfRange(arguments, 1, arguments.length));
             return;
         }
+            
+        if(arguments[0].matches("-s")) { // memory size
+            memorySize = parseMemorySize(arguments);
+            memorySizeSet = true;
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-m")) { // memory image
+            if(arguments.length < 2) {
+                printError("-m : No memory image specified");
+            }
+            
+            memoryImage = new File(arguments[1]);
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-d")) { // memory dump
+            if(arguments.length < 2) {
+                printError("-d : No dump file specified");
+            }
+            
+            memoryDump = new File(arguments[1]);
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-r")) { // read-only code
+            codeReadOnly = true;
+            
+            processArguments(Arrays.copyOfRange(arguments, 1, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-x")) { // extended instruction format
+            instructionFormat = InstructionFormat.EXTENDED;
+            
+            processArguments(Arrays.copyOfRange(arguments, 1, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-l")) { // instruction limit
+            instructionLimit = parseLimit(arguments, "-l : No instruction limit specified");
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-t")) { // time limit
+            timeLimit = parseLimit(arguments, "-t : No time limit specified");
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
+            
+        if(arguments[0].matches("-w")) { // memory write limit
+            memoryWriteLimit = parseLimit(arguments, "-w : No memory write limit specified");
+            
+            processArguments(Arrays.copyOfRange(arguments, 2, arguments.length));
+            return;
+        }
         
         printError("Invalid command syntax");
     }
@@ -98,9 +183,22 @@ public class CommandLineInstance {
         print(" f [format] -i <filename>        : Assemble file");
         print(" f [format] -i <filename>  -e    : Assemble file and execute");
         print(" f [format] -i <filename>  -e -o : Assemble file, execute, and save trace information");
+        print(" s <words>                       : Execute with the given memory size (default " + 
+                AbstractComputer.DEFAULT_MEMORY_SIZE + ")");
+        print(" m <filename>                    : Execute with memory mapped to the given image file");
+        print("                                   (sized from the image unless -s is given)");
+        print(" d <filename>                    : Save memory as an image file after execution");
+        print(" r                               : Execute with read-only code (writing to code is an error)");
+        print(" x                               : Use extended instructions (4 digit operands)");
+        print(" l <instructions>                : Stop execution after the given number of instructions");
+        print(" t <milliseconds>                : Stop execution after the given time");
+        print(" w <writes>                      : Stop execution after the given number of memory writes");
+        print("                                   (exit code " + LIMIT_EXCEEDED_EXIT_CODE + " when a limit is exceeded)");
         print("[format]");
         print(" a | absolute                    : Absolute Address Machine");
         print(" r | register                    : Register Address Machine");
+        print(" c | compiled                    : Absolute Address Machine (compiled execution)");
+        print(" t | threaded                    : Absolute Address Machine (threaded code execution)");
         
         System.exit(0);
     }
@@ -131,15 +229,28 @@ public class CommandLineInstance {
             printError("-f : No format specified");
         }
         
-        if(arguments[1].matches("a|absolute")) {              
-            computer = new AbsoluteAddressComputer();
+        if(arguments[1].matches("a|absolute|c|compiled|t|threaded")) {              
             assembler = new AbsoluteAddressAssembler();
         }else if(arguments[1].matches("r|register")) {                
-            computer = new RegisterAddressComputer();
             assembler = new RegisterAddressAssembler();
         }else {
             printError("-f : Invalid format specified");
         }
+        
+        // The computer is constructed once its memory size is known
+        computerFormat = arguments[1];
+    }
+    
+    private Computer createComputer() {
+        if(computerFormat.matches("c|compiled")) {              
+            return new BlockCompilingComputer(memorySize);
+        }else if(computerFormat.matches("t|threaded")) {              
+            return new ThreadedCodeComputer(memorySize);
+        }else if(computerFormat.matches("r|register")) {                
+            return new RegisterAddressComputer(memorySize);
+        }else {
+            return new AbsoluteAddressComputer(memorySize);
+        }
     }
     
     private void doInput(String[] arguments) {
@@ -166,6 +277,44 @@ public class CommandLineInstance {
         }
     }
     
+    private int parseMemorySize(String[] arguments) {
+        if(arguments.length < 2) {
+            printError("-s : No memory size specified");
+        }
+        
+        try {
+            int size = Integer.parseInt(arguments[1]);
+            
+            if(size > 0) {
+                return size;
+            }
+        }catch (NumberFormatException e) {
+            // reported below
+        }
+        
+        printError("-s : Memory size must be a positive number of words (at most " + Integer.MAX_VALUE + ")");
+        return 0;
+    }
+    
+    private long parseLimit(String[] arguments, String missingError) {
+        if(arguments.length < 2) {
+            printError(missingError);
+        }
+        
+        try {
+            long limit = Long.parseLong(arguments[1]);
+            
+            if(limit > 0) {
+                return limit;
+            }
+        }catch (NumberFormatException e) {
+            // reported below
+        }
+        
+        printError(arguments[0] + " : Limit must be a positive integer");
+        return 0;
+    }
+    
     private void doExecute() {
         execute = true;
     }
@@ -185,6 +334,7 @@ public class CommandLineInstance {
                
         print("...Assembling " + sourceFile.getName());
         
+        assembler.setInstructionFormat(instructionFormat);
         assembler.assemble(sourceFile);
         
         print("..." + assembler.getErrors().length + " error(s) found");
@@ -227,16 +377,40 @@ public class CommandLineInstance {
             printError("-i : No source file specified");
         }
         
-        if(assembler == null || computer == null) {
+        if(assembler == null || computerFormat == null) {
             printError("-f : No format specified");
         }
         
+        // Memory is sized to fit an existing image unless a size is given
+        if(memoryImage != null && !memorySizeSet && MappedWordStore.getImageSize(memoryImage) > 0) {
+            memorySize = MappedWordStore.getImageSize(memoryImage);
+        }
+        
+        for(Instruction instruction : assembler.getInstructions()) {
+            if(instruction.getMemoryLocation() >= memorySize) {
+                printError("Program does not fit in " + memorySize + " words of memory (use -s)");
+            }
+        }
+        
+        computer = createComputer();
+        computer.setInstructionFormat(instructionFormat);
+        
         if(assembler.hasErrors()) {
             printError("Unable to execute file due to errors");
         }
         
         print("...preparing to execute program");
         
+        if(memoryImage != null) {
+            print("...mapping memory image " + memoryImage + " (" + memorySize + " words)");
+            
+            try {
+                computer.getMemory().setWordStore(new MappedWordStore(memoryImage, memorySize));
+            }catch (IOException e) {
+                printError(e.getMessage());
+            }
+        }
+        
         if(trace) {
             print("...opening computer trace files");
             addTraceListeners();
@@ -244,6 +418,13 @@ public class CommandLineInstance {
         
         computer.setExecutionSpeed(ExecutionSpeed.FULL);
         computer.setInstructions(assembler.getInstructions());
+        computer.setCodeReadOnly(codeReadOnly);
+        computer.setInstructionLimit(instructionLimit);
+        computer.setTimeLimit(timeLimit);
+        computer.setMemoryWriteLimit(memoryWriteLimit);
+        
+        // Released when execution finishes
+        final CountDownLatch finished = new CountDownLatch(1);
         
         computer.addComputerListener(new ComputerAdapter() {
             public void computerStarted(Computer computer) {
@@ -251,10 +432,53 @@ public class CommandLineInstance {
             }
             public void computerStopped(Computer computer) {
                 print("...Execution complete");
+                finished.countDown();
+            }
+            public void computerError(Computer computer, Throwable error) {
+                // Trace listeners already report errors
+                if(!trace) {
+                    print("ERROR: " + error.getMessage());
+                }
+                finished.countDown();
+            }
+            public void limitExceeded(Computer computer, ExecutionLimit limit) {
+                print("ERROR: " + limit.getMessage());
+                exceededLimit = limit;
             }
         });
         
         computer.execute();
+        
+        // The execution thread may be a daemon (virtual) thread - wait for it
+        try {
+            finished.await();
+        }catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        saveMemory();
+        
+        if(exceededLimit != null) {
+            System.exit(LIMIT_EXCEEDED_EXIT_CODE);
+        }
+    }
+    
+    private void saveMemory() {
+        WordStore store = computer.getMemory().getWordStore();
+        
+        if(store instanceof MappedWordStore) {
+            ((MappedWordStore) store).flush();
+        }
+        
+        if(memoryDump != null) {
+            print("...saving memory image " + memoryDump);
+            
+            try {
+                MappedWordStore.save(computer.getMemory(), memoryDump);
+            }catch (IOException e) {
+                printError(e.getMessage());
+            }
+        }
     }
     
     private void addTraceListeners() {
@@ -275,6 +499,10 @@ public class CommandLineInstance {
                     memoryTrace.println("WRITE," + address + "," + value);
                 }
 
+                public void memoryRangeWritten(Memory memory, int address, int length) {
+                    memoryTrace.println("WRITE_RANGE," + address + "," + length);
+                }
+
                 public void memoryError(Memory memory, Throwable error) {
                     memoryTrace.println("ERROR: " + error.getMessage());
                     
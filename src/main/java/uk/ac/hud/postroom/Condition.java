@@ -1,5 +1,9 @@
 package uk.ac.hud.postroom;
 
+import uk.ac.hud.postroom.util.*;
+
+import java.util.*;
+
 /**
  * Enumeration of Condition Codes and their mnemonics
  * @author Richard Walton (c0410542@hud.ac.uk)
@@ -47,6 +51,27 @@ public enum Condition {
     /** Not memory - 032 **/
     NMEM("032");
     
+    // Conditions indexed by numeric value (null where no Condition has the value)
+    private static final Condition[] BY_NUMERIC_VALUE = new Condition[41];
+    
+    // Conditions keyed by value
+    private static final Map<String, Condition> BY_VALUE = new HashMap<String, Condition>();
+    
+    // Conditions keyed by mnemonic
+    private static final MnemonicTable<Condition> BY_MNEMONIC;
+    
+    static {
+        String[] mnemonics = new String[values().length];
+        
+        for(Condition condition : values()) {
+            BY_NUMERIC_VALUE[Integer.parseInt(condition.getValue())] = condition;
+            BY_VALUE.put(condition.getValue(), condition);
+            mnemonics[condition.ordinal()] = condition.name();
+        }
+        
+        BY_MNEMONIC = new MnemonicTable<Condition>(mnemonics, values());
+    }
+    
     // Value of the Condition
     private String value;
     
@@ -72,7 +97,13 @@ public enum Condition {
      * @return Condition matching the given mnemonic
      */
     public static Condition getByMnemonic(String mnemonic) {
-        return valueOf(mnemonic.toUpperCase());
+        Condition condition = BY_MNEMONIC.get(mnemonic);
+        
+        if(condition == null) {
+            throw new IllegalArgumentException("No Condition with mnemonic " + mnemonic);
+        }
+        
+        return condition;
     }
     
     /**
@@ -81,10 +112,24 @@ public enum Condition {
      * @return Condition matching the given value
      */
     public static Condition getByValue(String value) {
-        for(Condition condition : values()) {
-            if(condition.getValue().equals(value)) {
-                return condition;
-            }
+        Condition condition = BY_VALUE.get(value);
+        
+        if(condition == null) {
+            // Throw exception as no Condition matches the given value
+            throw new IllegalArgumentException("No Condition with value " + value);
+        }
+        
+        return condition;
+    }
+    
+    /**
+     * Returns the Condition matching the given numeric value
+     * @param value Numeric value of the Condition
+     * @return Condition matching the given value
+     */
+    public static Condition getByValue(int value) {
+        if(value >= 0 && value < BY_NUMERIC_VALUE.length && BY_NUMERIC_VALUE[value] != null) {
+            return BY_NUMERIC_VALUE[value];
         }
         
         // Throw exception as no Condition matches the given value
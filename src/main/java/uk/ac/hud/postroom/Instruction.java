@@ -9,11 +9,17 @@ import uk.ac.hud.postroom.exception.*;
  */
 public class Instruction extends Statement {
     
-    // Machine code instruction generated from this statement
-    private String instruction;
+    // Machine code instruction word generated from this statement
+    private int word;
+    
+    // Number of digits the textual form of the instruction is padded to
+    private int width;
     
     private boolean breakpoint;
     
+    // Whether the instruction was translated from an OpCode statement
+    private boolean code;
+    
     public Instruction(SourceFile sourceFile, int lineNo, Token[] tokens) throws SyntaxError {
         super(sourceFile, lineNo, tokens);
         
@@ -21,11 +27,12 @@ public class Instruction extends Statement {
             throwSyntaxError(1, "Expected end of line");
         }
         
-        instruction = tokens[0].getValue();
+        // Machine code instructions are only digits
+        instruction(tokens[0].getValue());
     }
     
     /**
-     * Constructs a new Instruction
+     * Constructs a new Instruction from machine code (or data) text
      * @param statement Statement used to generate the instruction
      * @param instruction Machine code instruction
      * @throws AssemblyError thrown if the instruction is not an integer
@@ -36,20 +43,57 @@ public class Instruction extends Statement {
 
         // Check to ensure valid (integer) instruction data
         try {
-            Integer.parseInt(instruction);
+            instruction(instruction);
         }catch (NumberFormatException e) {
             throw new AssemblyError(this, "Invalid instruction data");
         }
+    }
+    
+    /**
+     * Constructs a new Instruction from a packed instruction word
+     * @param statement Statement used to generate the instruction
+     * @param word Instruction word
+     * @param width Number of digits the textual form is padded to
+     */
+    public Instruction(Statement statement, int word, int width) {
+        // Super-class (Statement) constructor
+        super(statement.getSourceFile(), statement.getLineNo(), statement.getTokens());
         
-        this.instruction = instruction;
+        this.word = word;
+        this.width = width;
     }
     
     /**
-     * Returns the instruction
+     * Parses the given instruction text - leading zeros are kept in the 
+     * textual form of the instruction
+     * @param instruction Machine code instruction
+     * @throws NumberFormatException if the instruction is not an integer
+     */
+    private void instruction(String instruction) {
+        word = Integer.parseInt(instruction);
+        width = Character.isDigit(instruction.charAt(0)) ? instruction.length() : 0;
+    }
+    
+    /**
+     * Returns the instruction word
+     * @return instruction word generated from this statement
+     */
+    public int getWord() {
+        return word;
+    }
+    
+    /**
+     * Returns the textual (machine code) form of the instruction
      * @return instruction generated from this statement
      */
     public String getInstruction() {
-        return instruction;
+        StringBuilder instruction = new StringBuilder(Integer.toString(word));
+        
+        while(instruction.length() < width) {
+            instruction.insert(0, '0');
+        }
+        
+        return instruction.toString();
     }
     
     public void setBreakPoint(boolean breakpoint) {
@@ -60,6 +104,23 @@ public class Instruction extends Statement {
         return breakpoint;
     }
     
+    /**
+     * Sets whether the instruction was translated from an OpCode statement 
+     * (code) rather than a data statement
+     * @param code true if the instruction is code
+     */
+    public void setCode(boolean code) {
+        this.code = code;
+    }
+    
+    /**
+     * Returns whether the instruction was translated from an OpCode statement
+     * @return true if the instruction is code, false if it is data
+     */
+    public boolean isCode() {
+        return code;
+    }
+    
     /**
      * Returns the instruction is string format
      * @return instruction generated from this statement
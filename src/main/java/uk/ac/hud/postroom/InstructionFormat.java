@@ -0,0 +1,195 @@
+package uk.ac.hud.postroom;
+
+/**
+ * Enumeration of the formats of Post Room Computer instruction words.  Every
+ * format is [OP|AF1|AF2] - a single digit OpCode followed by two operand
+ * fields of equal width
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public enum InstructionFormat {
+
+    /** 7 digit words with 3 digit operands - addresses 0 to 999 **/
+    STANDARD (3),
+
+    /** 9 digit words with 4 digit operands - addresses 0 to 9999 **/
+    EXTENDED (4);
+
+    // Number of digits in each operand field
+    private int operandDigits;
+
+    // 10 ^ operandDigits - the first value which does not fit in an operand
+    private int operandLimit;
+
+    // 10 ^ (2 * operandDigits) - the place value of the OpCode digit
+    private int opCodeScale;
+
+    /**
+     * Constructs a new InstructionFormat with the given operand width
+     * @param operandDigits Number of digits in each operand field
+     */
+    private InstructionFormat(int operandDigits) {
+        this.operandDigits = operandDigits;
+
+        operandLimit = 1;
+        for(int i = 0; i < operandDigits; i++) {
+            operandLimit *= 10;
+        }
+
+        opCodeScale = operandLimit * operandLimit;
+    }
+
+    /**
+     * Returns the number of digits in each operand field
+     * @return operand width
+     */
+    public int getOperandDigits() {
+        return operandDigits;
+    }
+
+    /**
+     * Returns the number of digits in an instruction word
+     * @return instruction word width
+     */
+    public int getWordDigits() {
+        return 1 + 2 * operandDigits;
+    }
+
+    /**
+     * Returns the first value which does not fit in an operand field
+     * @return 10 ^ operand width
+     */
+    public int getOperandLimit() {
+        return operandLimit;
+    }
+
+    /**
+     * Returns whether the given word is a well formed instruction word
+     * @param word Word to test
+     * @return true if the word has no more digits than the format allows
+     */
+    public boolean isValid(int word) {
+        return word >= 0 && word / opCodeScale < 10;
+    }
+
+    /**
+     * Returns whether the given value fits in an operand field
+     * @param operand Operand field
+     * @return true if the operand is not negative and not wider than the operand width
+     */
+    public boolean fits(int operand) {
+        return operand >= 0 && operand < operandLimit;
+    }
+
+    /**
+     * Packs an OpCode and operand fields into an instruction word
+     * @param opCode OpCode digit
+     * @param operand1 First operand field (AF1)
+     * @param operand2 Second operand field (AF2)
+     * @return instruction word [OP|AF1|AF2]
+     * @throws IllegalArgumentException if a field does not fit the format
+     */
+    public int encode(int opCode, int operand1, int operand2) {
+        if(opCode < 0 || opCode > 9 || !fits(operand1) || !fits(operand2)) {
+            throw new IllegalArgumentException("Instruction fields do not fit a " + 
+                    getWordDigits() + " digit instruction");
+        }
+
+        return opCode * opCodeScale + operand1 * operandLimit + operand2;
+    }
+
+    /**
+     * Packs a value (Register ID or immediate value) and an AddressMode into
+     * a register address machine operand field
+     * @param value Register ID or immediate value
+     * @param addressMode AddressMode of the operand
+     * @return operand field [Value|AddressMode]
+     */
+    public static int encodeOperand(int value, AddressMode addressMode) {
+        return value * 10 + addressMode.getValue();
+    }
+
+    /**
+     * Returns the value (Register ID or immediate value) of a register 
+     * address machine operand field
+     * @param operand Operand field [Value|AddressMode]
+     * @return value part of the operand
+     */
+    public static int getOperandValue(int operand) {
+        return operand / 10;
+    }
+
+    /**
+     * Returns the AddressMode of a register address machine operand field
+     * @param operand Operand field [Value|AddressMode]
+     * @return AddressMode of the operand
+     */
+    public static AddressMode getAddressMode(int operand) {
+        return AddressMode.getByValue(operand % 10);
+    }
+
+    /**
+     * Returns the OpCode digit of the given instruction word
+     * @param word Instruction word
+     * @return OpCode digit
+     */
+    public int getOpCode(int word) {
+        return word / opCodeScale;
+    }
+
+    /**
+     * Returns the first operand field (AF1) of the given instruction word
+     * @param word Instruction word
+     * @return first operand field
+     */
+    public int getOperand1(int word) {
+        return word / operandLimit % operandLimit;
+    }
+
+    /**
+     * Returns the second operand field (AF2) of the given instruction word
+     * @param word Instruction word
+     * @return second operand field
+     */
+    public int getOperand2(int word) {
+        return word % operandLimit;
+    }
+
+    /**
+     * Returns the given instruction word padded with zeros to the word width
+     * @param word Instruction word
+     * @return machine code format of the word
+     */
+    public String format(int word) {
+        return pad(Integer.toString(word), getWordDigits());
+    }
+
+    /**
+     * Returns the given operand padded with zeros to the operand width
+     * @param operand Digits of the operand
+     * @return operand padded to the operand width
+     * @throws IllegalArgumentException if the operand is wider than the operand width
+     */
+    public String formatOperand(String operand) {
+        if(operand.length() > operandDigits) {
+            throw new IllegalArgumentException("'" + operand + "' does not fit in a " +
+                    operandDigits + " digit operand");
+        }
+
+        return pad(operand, operandDigits);
+    }
+
+    /**
+     * Pads the given digits with leading zeros
+     * @param digits Digits to pad
+     * @param width Width to pad to
+     * @return padded digits
+     */
+    private static String pad(String digits, int width) {
+        StringBuilder padded = new StringBuilder(digits);
+        while(padded.length() < width) {
+            padded.insert(0, "0");
+        }
+
+        return padded.toString();
+    }
+}
@@ -1,5 +1,7 @@
 package uk.ac.hud.postroom;
 
+import uk.ac.hud.postroom.util.*;
+
 /**
  * Enumeration of Operational Codes and their mnemonics
  * @author Richard Walton (c0410542@hud.ac.uk)
@@ -48,6 +50,23 @@ public enum OpCode {
             "at the address specified by the second operand. If the number is negative, " +
             "the first number is shifted to the right");
     
+    // OpCodes indexed by numeric value
+    private static final OpCode[] BY_VALUE = new OpCode[10];
+    
+    // OpCodes keyed by mnemonic
+    private static final MnemonicTable<OpCode> BY_MNEMONIC;
+    
+    static {
+        String[] mnemonics = new String[values().length];
+        
+        for(OpCode opCode : values()) {
+            BY_VALUE[Integer.parseInt(opCode.getValue())] = opCode;
+            mnemonics[opCode.ordinal()] = opCode.name();
+        }
+        
+        BY_MNEMONIC = new MnemonicTable<OpCode>(mnemonics, values());
+    }
+    
     // Value of the OpCode
     private String value;
     
@@ -98,7 +117,13 @@ public enum OpCode {
      * @return OpCode matching the given mnemonic
      */
     public static OpCode getByMnemonic(String mnemonic) {
-        return valueOf(mnemonic.toUpperCase());
+        OpCode opCode = BY_MNEMONIC.get(mnemonic);
+        
+        if(opCode == null) {
+            throw new IllegalArgumentException("No OpCode with mnemonic " + mnemonic);
+        }
+        
+        return opCode;
     }
     
     /**
@@ -107,10 +132,23 @@ public enum OpCode {
      * @return OpCode matching the given value
      */
     public static OpCode getByValue(String value) {
-        for(OpCode opCode : values()) {
-            if(opCode.getValue().equals(value)) {
-                return opCode;
-            }
+        // Values are single digits
+        if(value.length() == 1 && value.charAt(0) >= '0' && value.charAt(0) <= '9') {
+            return getByValue(value.charAt(0) - '0');
+        }
+        
+        // Throw exception as no OpCode matches the given value
+        throw new IllegalArgumentException("No OpCode with value " + value);
+    }
+    
+    /**
+     * Returns the OpCode matching the given numeric value
+     * @param value Numeric value of the OpCode
+     * @return OpCode matching the given value
+     */
+    public static OpCode getByValue(int value) {
+        if(value >= 0 && value < BY_VALUE.length && BY_VALUE[value] != null) {
+            return BY_VALUE[value];
         }
         
         // Throw exception as no OpCode matches the given value
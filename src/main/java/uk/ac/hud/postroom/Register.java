@@ -1,5 +1,7 @@
 package uk.ac.hud.postroom;
 
+import uk.ac.hud.postroom.util.*;
+
 import java.util.*;
 
 /**
@@ -123,6 +125,40 @@ public enum Register {
     /** The I/O type buffer. Indicates the type of I/O to be performed  - b4n6 **/
     IOT ("46");
     
+    // Registers indexed by numeric registerID (registerNo * 10 + bank)
+    private static final Register[] BY_NUMERIC_ID = new Register[100];
+    
+    // Registers keyed by registerID
+    private static final Map<String, Register> BY_ID = new HashMap<String, Register>();
+    
+    // Registers in each bank
+    private static final Register[][] BY_BANK = new Register[10][];
+    
+    // Registers keyed by mnemonic
+    private static final MnemonicTable<Register> BY_MNEMONIC;
+    
+    static {
+        String[] mnemonics = new String[values().length];
+        List<List<Register>> banks = new ArrayList<List<Register>>();
+        
+        for(int i = 0; i < BY_BANK.length; i++) {
+            banks.add(new ArrayList<Register>());
+        }
+        
+        for(Register register : values()) {
+            BY_NUMERIC_ID[register.getRegisterNo() * 10 + register.getBankNo()] = register;
+            BY_ID.put(register.getRegisterID(), register);
+            banks.get(register.getBankNo()).add(register);
+            mnemonics[register.ordinal()] = register.name();
+        }
+        
+        for(int i = 0; i < BY_BANK.length; i++) {
+            BY_BANK[i] = banks.get(i).toArray(new Register[]{});
+        }
+        
+        BY_MNEMONIC = new MnemonicTable<Register>(mnemonics, values());
+    }
+    
     // The bank which the register is stored in
     private int bank;
     
@@ -183,7 +219,13 @@ public enum Register {
      * @return Register matching the given mnemonic
      */
     public static Register getByMnemonic(String mnemonic) {
-        return valueOf(mnemonic.toUpperCase());
+        Register register = BY_MNEMONIC.get(mnemonic);
+        
+        if(register == null) {
+            throw new IllegalArgumentException("No Register with mnemonic " + mnemonic);
+        }
+        
+        return register;
     }
     
     /**
@@ -192,30 +234,49 @@ public enum Register {
      * @return Register matching the given registerID
      */
     public static Register getByRegisterID(String registerID) {
-        for(Register register : values()) {
-            if(register.getRegisterID().equals(registerID)) {
-                return register;
-            }
+        Register register = BY_ID.get(registerID);
+        
+        if(register == null) {
+            // Throw exception as no Register matches the given value
+            throw new IllegalArgumentException("No Register with ID " + registerID);
+        }
+        
+        return register;
+    }
+    
+    /**
+     * Returns the Register matching the given numeric registerID
+     * @param registerID Numeric ID of the register (registerNo * 10 + bank)
+     * @return Register matching the given registerID
+     */
+    public static Register getByRegisterID(int registerID) {
+        if(isRegisterID(registerID)) {
+            return BY_NUMERIC_ID[registerID];
         }
         
         // Throw exception as no Register matches the given value
         throw new IllegalArgumentException("No Register with ID " + registerID);
     }
     
+    /**
+     * Returns whether a Register has the given numeric registerID
+     * @param registerID Numeric ID of the register (registerNo * 10 + bank)
+     * @return true if getByRegisterID(registerID) would return a Register
+     */
+    public static boolean isRegisterID(int registerID) {
+        return registerID >= 0 && registerID < BY_NUMERIC_ID.length && BY_NUMERIC_ID[registerID] != null;
+    }
+    
     /**
      * Returns all registers in the given bank
      * @param bankNo Bank of registers to get
      * @return Registers in the given bank
      */
     public static Register[] getByBank(int bankNo) {
-        List<Register> registers = new ArrayList<Register>();
-        
-        for(Register register : values()) {
-            if(register.getBankNo() == bankNo) {
-                registers.add(register);
-            }
+        if(bankNo < 0 || bankNo >= BY_BANK.length) {
+            return new Register[]{};
         }
         
-        return registers.toArray(registers.toArray(new Register[]{}));
+        return BY_BANK[bankNo].clone();
     }
 }
\ No newline at end of file
@@ -52,83 +52,26 @@ public class AbsoluteAddressAssembler extends AbstractAssembler {
             
             statementList.remove();
             
-            // Translated instruction
-            StringBuilder translation = new StringBuilder();
-            
-            /* At this point in assembly only OpCode and/or Data statements are
-             * in the statement list */
-            if(statement instanceof OpCodeStatement) {
-                // OpCode found
-                OpCodeStatement opCode = (OpCodeStatement) statement;
-                
-                translation.append(opCode.getOpCode().getValue());
-                
-                /**
-                 * Translate each token into machine code
-                 */
-                for(Token token : opCode.getTokens()) {
-                    switch(token.getType()) {                            
-                        // ADDRESS tokens are translated into 3 digit addresses
-                        case ADDRESS :
-                            StringBuilder address = new StringBuilder(token.getValue());
-                            while(address.length() < 3) {
-                                address.insert(0, "0");
-                            }
-                            
-                            translation.append(address.toString());
-                            break;
-                            
-                        // CHARACTER tokens are translated into 3 digit ascii values
-                        case CHARACTER :
-                            StringBuilder character = new StringBuilder(
-                                    Integer.toString((int) token.getValue().charAt(1)));
-                            
-                            while(character.length() < 3) {
-                                character.insert(0, "0");
-                            }
-                            
-                            translation.append(character);
-                            break;
-
-                        // JMP Condition codes
-                        case CONDITION :
-                            StringBuilder code = new StringBuilder();
-                            code.append(Condition.getByMnemonic(token.getValue()).getValue());
-                            while(code.length() < 3) {
-                                code.insert(0, "0");
-                            }
-                            
-                            translation.append(code.toString());
-                            break;
-                            
-                        // REGISTER tokens
-                        case REGISTER :
-                            logError(statement, "Cannot use register address functions in absolute address computer");
-                            break;
-                            
-                        // EOL tokens can finally be discarded.    
-                        case EOL :
-                            break;
-                    }
-                }
+            // Store the instruction
+            try {
+                Instruction instruction;
                 
-                /* OpCode statements can contain optional parameters.  
-                 * If these have not been specified the instruction needs padding */
-                while(translation.length() < 7) {
-                    translation.append("000");
+                /* At this point in assembly only OpCode and/or Data statements are
+                 * in the statement list */
+                if(statement instanceof OpCodeStatement) {
+                    // OpCode found - store the packed instruction word
+                    instruction = new Instruction(statement, 
+                            encode((OpCodeStatement) statement), instructionFormat.getWordDigits());
+                }else if(statement instanceof DataStatement) {
+                    // Data found.  Simply store the data it contains
+                    instruction = new Instruction(statement, ((DataStatement) statement).getData());
+                }else {
+                    logError(statement, "Invalid statmenent");
+                    continue;
                 }
                 
-            }else if(statement instanceof DataStatement) {
-                // Data found.  Simply add the data it contains in Token format.
-                translation.append(((DataStatement) statement).getData());
-            }else {
-                logError(statement, "Invalid statmenent");
-            }
-            
-            // Store the instruction
-            try {
-                Instruction instruction = new Instruction(statement, translation.toString());
                 instruction.setMemoryLocation(statement.getMemoryLocation());
+                instruction.setCode(statement instanceof OpCodeStatement);
                 
                 statementList.add(instruction);
                 instructions.add(instruction);
@@ -137,4 +80,54 @@ public class AbsoluteAddressAssembler extends AbstractAssembler {
             }
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Translates the given OpCode statement into a packed instruction word
+     * @param statement OpCode statement to translate
+     * @return instruction word
+     */
+    private int encode(OpCodeStatement statement) {
+        // Operand fields - optional operands which are not specified are empty
+        int[] operands = new int[2];
+        int operandCount = 0;
+        
+        /**
+         * Translate each token into an operand field
+         */
+        for(Token token : statement.getTokens()) {
+            int operand;
+            
+            switch(token.getType()) {                            
+                // ADDRESS tokens are translated into addresses
+                case ADDRESS :
+                    operand = Integer.parseInt(token.getValue());
+                    break;
+                    
+                // CHARACTER tokens are translated into ascii values
+                case CHARACTER :
+                    operand = token.getValue().charAt(1);
+                    break;
+                    
+                // JMP Condition codes
+                case CONDITION :
+                    operand = Integer.parseInt(Condition.getByMnemonic(token.getValue()).getValue());
+                    break;
+                    
+                // REGISTER tokens
+                case REGISTER :
+                    logError(statement, "Cannot use register address functions in absolute address computer");
+                    continue;
+                    
+                // EOL tokens can finally be discarded.    
+                default :
+                    continue;
+            }
+            
+            if(operandCount < operands.length) {
+                operands[operandCount++] = checkOperand(statement, operand);
+            }
+        }
+        
+        return encodeInstruction(statement.getOpCode(), operands);
+    }
+}
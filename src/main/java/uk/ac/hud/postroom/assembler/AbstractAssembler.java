@@ -35,6 +35,9 @@ public abstract class AbstractAssembler implements Assembler {
     /** Map of labels found during assembly and the address they represent **/
     protected Map<LabelStatement, Integer> labels;
     
+    /** Format of the instruction words produced **/
+    protected InstructionFormat instructionFormat;
+    
     public AbstractAssembler() {
         sourceFiles = new ArrayList<SourceFile>();
         snapshots = new ArrayList<AssemblySnapShot>();
@@ -43,6 +46,47 @@ public abstract class AbstractAssembler implements Assembler {
         errors = new ArrayList<AssemblyError>();
         macros = new ArrayList<MacroStatement>();
         labels = new Hashtable<LabelStatement, Integer>();
+        instructionFormat = InstructionFormat.STANDARD;
+    }
+    
+    /** @inherhitDoc **/
+    public void setInstructionFormat(InstructionFormat instructionFormat) {
+        this.instructionFormat = instructionFormat;
+    }
+    
+    /** @inherhitDoc **/
+    public InstructionFormat getInstructionFormat() {
+        return instructionFormat;
+    }
+    
+    /**
+     * Returns the given operand field.  Logs an error if the operand does 
+     * not fit the operand width of the instruction format
+     * @param statement Statement the operand belongs to
+     * @param operand Operand field
+     * @return operand field (0 if it does not fit)
+     */
+    protected int checkOperand(Statement statement, int operand) {
+        if(!instructionFormat.fits(operand)) {
+            logError(statement, "'" + operand + "' does not fit in a " + 
+                    instructionFormat.getOperandDigits() + " digit operand" +
+                    (instructionFormat == InstructionFormat.STANDARD ? " (use the extended instruction format)" : ""));
+            
+            return 0;
+        }
+        
+        return operand;
+    }
+    
+    /**
+     * Packs the given OpCode and operand fields into an instruction word of
+     * the instruction format
+     * @param opCode OpCode of the instruction
+     * @param operands First and second operand fields
+     * @return instruction word
+     */
+    protected int encodeInstruction(OpCode opCode, int[] operands) {
+        return instructionFormat.encode(Integer.parseInt(opCode.getValue()), operands[0], operands[1]);
     }
     
     public abstract void assemble(SourceFile sourceFile);
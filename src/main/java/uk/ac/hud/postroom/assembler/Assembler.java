@@ -12,6 +12,18 @@ public interface Assembler {
      */
     public void assemble(SourceFile sourceFile);
     
+    /**
+     * Sets the format of the instruction words produced by the assembler
+     * @param instructionFormat instruction word format
+     */
+    public void setInstructionFormat(InstructionFormat instructionFormat);
+    
+    /**
+     * Returns the format of the instruction words produced by the assembler
+     * @return instruction word format
+     */
+    public InstructionFormat getInstructionFormat();
+    
     /**
      * Returns the Source File that was assembled
      * @return Source file that was assembled
@@ -14,6 +14,9 @@ public class MachineCodeAssembler extends AbstractAssembler {
         
         for(Statement statement : analyser.getStatements()) {
             if(statement instanceof Instruction) {
+                // Machine code files list instructions in memory order
+                statement.setMemoryLocation(instructions.size());
+                
                 statements.add(statement);
                 instructions.add((Instruction) statement);
             }else {
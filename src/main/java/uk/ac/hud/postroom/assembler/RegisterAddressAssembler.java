@@ -4,6 +4,7 @@ import java.util.ListIterator;
 import uk.ac.hud.postroom.AddressMode;
 import uk.ac.hud.postroom.Condition;
 import uk.ac.hud.postroom.Instruction;
+import uk.ac.hud.postroom.InstructionFormat;
 import uk.ac.hud.postroom.Register;
 import uk.ac.hud.postroom.SourceFile;
 import uk.ac.hud.postroom.assembler.statement.DataStatement;
@@ -59,121 +60,27 @@ public class RegisterAddressAssembler extends AbstractAssembler {
             
             statementList.remove();
             
-            // Translated instruction
-            StringBuilder translation = new StringBuilder();
-            
-            /* At this point in assembly only OpCode and/or Data statements are
-             * in the statement list */
-            if(statement instanceof OpCodeStatement) {
-                // OpCode found
-                OpCodeStatement opCode = (OpCodeStatement) statement;
-                
-                translation.append(opCode.getOpCode().getValue());
+            // Store the instruction
+            try {
+                Instruction instruction;
                 
-                /**
-                 * Translate each token into machine code
-                 */
-                for(Token token : opCode.getTokens()) {
-                    switch(token.getType()) {                            
-                        // ADDRESS tokens are translated into 3 digit addresses
-                        case ADDRESS :
-                            StringBuilder address = new StringBuilder(token.getValue());
-                            while(address.length() < 3) {
-                                address.insert(0, "0");
-                            }
-                            
-                            translation.append(address.toString());
-                            break;
-                            
-                        // CHARACTER tokens are translated into 3 digit ascii values
-                        case CHARACTER :
-                            StringBuilder character = new StringBuilder(
-                                    Integer.toString((int) token.getValue().charAt(1)));
-                            
-                            while(character.length() < 3) {
-                                character.insert(0, "0");
-                            }
-                            
-                            translation.append(character);
-                            break;
-
-                        // JMP Condition codes
-                        case CONDITION :
-                            StringBuilder code = new StringBuilder();
-                            code.append(Condition.getByMnemonic(token.getValue()).getValue());
-                            while(code.length() < 3) {
-                                code.insert(0, "0");
-                            }
-                            
-                            translation.append(code.toString());
-                            break;
-                            
-                        // REGISTER tokens
-                        case REGISTER :
-                            String register = token.getValue();
-                            
-                            StringBuilder addressMnemonic = new StringBuilder();
-                            StringBuilder registerMnemonic = new StringBuilder();
-                            
-                            // Split Register into AddressMode / Register ID
-                            for(int i = 0; i < register.length(); i++) {
-                                char nextChar = register.charAt(i);
-                                if(!Character.isLetterOrDigit(nextChar)) {
-                                    // AddressModes do not have letter or digit characters
-                                    addressMnemonic.append(nextChar);
-                                }else {
-                                    registerMnemonic.append(nextChar);
-                                }
-                            }
-                            
-                            // Get addressMode
-                            AddressMode addressMode = 
-                                    AddressMode.getByMnemonic(addressMnemonic.toString());
-                            
-                            // IMMEDIATE address modes don't actually use address modes
-                            switch(addressMode) {
-                                case IMMEDIATE_DIRECT :
-                                case IMMEDIATE_INDIRECT :
-                                    // Ensure correct padding for value
-                                    StringBuilder value =  new StringBuilder(registerMnemonic.toString());
-                                    while(value.length() < 2) {
-                                        value.insert(0, "0");
-                                    }
-                                    
-                                    translation.append(value.toString());
-                                    break;
-                                default :
-                                    // All others use Registers
-                                    translation.append(Register.getByMnemonic(
-                                            registerMnemonic.toString()).getRegisterID());
-                            }
-
-                            translation.append(addressMode.getValue());
-                            
-                            break;
-                            
-                        // EOL tokens can finally be discarded.    
-                        case EOL :
-                            break;
-                    }
+                /* At this point in assembly only OpCode and/or Data statements are
+                 * in the statement list */
+                if(statement instanceof OpCodeStatement) {
+                    // OpCode found - store the packed instruction word
+                    instruction = new Instruction(statement, 
+                            encode((OpCodeStatement) statement), instructionFormat.getWordDigits());
+                }else if(statement instanceof DataStatement) {
+                    // Data found.  Simply store the data it contains
+                    instruction = new Instruction(statement, ((DataStatement) statement).getData());
+                }else {
+                    logError(statement, "Invalid statmenent");
+                    continue;
                 }
                 
-                /* OpCode statements can contain optional parameters.  
-                 * If these have not been specified the instruction needs padding */
-                while(translation.length() < 7) {
-                    translation.append("000");
-                }
+                instruction.setMemoryLocation(statement.getMemoryLocation());
+                instruction.setCode(statement instanceof OpCodeStatement);
                 
-            }else if(statement instanceof DataStatement) {
-                // Data found.  Simply add the data it contains in Token format.
-                translation.append(((DataStatement) statement).getData());
-            }else {
-                logError(statement, "Invalid statmenent");
-            }
-            
-            // Store the instruction
-            try {
-                Instruction instruction = new Instruction(statement, translation.toString());
                 statementList.add(instruction);
                 instructions.add(instruction);
             }catch (AssemblyError e) {
@@ -181,4 +88,93 @@ public class RegisterAddressAssembler extends AbstractAssembler {
             }
         }
     }
+    
+    /**
+     * Translates the given OpCode statement into a packed instruction word
+     * @param statement OpCode statement to translate
+     * @return instruction word
+     */
+    private int encode(OpCodeStatement statement) {
+        // Operand fields - optional operands which are not specified are empty
+        int[] operands = new int[2];
+        int operandCount = 0;
+        
+        /**
+         * Translate each token into an operand field
+         */
+        for(Token token : statement.getTokens()) {
+            int operand;
+            
+            switch(token.getType()) {                            
+                // ADDRESS tokens are translated into addresses
+                case ADDRESS :
+                    operand = Integer.parseInt(token.getValue());
+                    break;
+                    
+                // CHARACTER tokens are translated into ascii values
+                case CHARACTER :
+                    operand = token.getValue().charAt(1);
+                    break;
+                    
+                // JMP Condition codes
+                case CONDITION :
+                    operand = Integer.parseInt(Condition.getByMnemonic(token.getValue()).getValue());
+                    break;
+                    
+                // REGISTER tokens are translated into [Register|AddressMode]
+                case REGISTER :
+                    String register = token.getValue();
+                    
+                    StringBuilder addressMnemonic = new StringBuilder();
+                    StringBuilder registerMnemonic = new StringBuilder();
+                    
+                    // Split Register into AddressMode / Register ID
+                    for(int i = 0; i < register.length(); i++) {
+                        char nextChar = register.charAt(i);
+                        if(!Character.isLetterOrDigit(nextChar)) {
+                            // AddressModes do not have letter or digit characters
+                            addressMnemonic.append(nextChar);
+                        }else {
+                            registerMnemonic.append(nextChar);
+                        }
+                    }
+                    
+                    // Get addressMode
+                    AddressMode addressMode = 
+                            AddressMode.getByMnemonic(addressMnemonic.toString());
+                    
+                    // IMMEDIATE address modes don't actually use address modes
+                    int value;
+                    switch(addressMode) {
+                        case IMMEDIATE_DIRECT :
+                        case IMMEDIATE_INDIRECT :
+                            // Value - packed with the address mode below
+                            try {
+                                value = Integer.parseInt(registerMnemonic.toString());
+                            }catch (NumberFormatException e) {
+                                logError(statement, "Invalid immediate value '" + registerMnemonic + "'");
+                                value = 0;
+                            }
+                            break;
+                        default :
+                            // All others use Registers
+                            value = Integer.parseInt(Register.getByMnemonic(
+                                    registerMnemonic.toString()).getRegisterID());
+                    }
+                    
+                    operand = InstructionFormat.encodeOperand(value, addressMode);
+                    break;
+                    
+                // EOL tokens can finally be discarded.    
+                default :
+                    continue;
+            }
+            
+            if(operandCount < operands.length) {
+                operands[operandCount++] = checkOperand(statement, operand);
+            }
+        }
+        
+        return encodeInstruction(statement.getOpCode(), operands);
+    }
 }
@@ -8,7 +8,7 @@ import java.util.regex.*;
  */
 public enum TokenGrammar {
     
-    INSTRUCTION ("[0-9]{7}", TokenType.INSTRUCTION), 
+    INSTRUCTION ("[0-9]{7}|[0-9]{9}", TokenType.INSTRUCTION), 
     
     /** Regular expression representing an Address **/
     ADDRESS ("[0-9]{1,2}", TokenType.ADDRESS),
@@ -34,7 +34,7 @@ public enum TokenGrammar {
     /** Regular expression representing a Label **/
     LABEL ("[:][a-z]+[:]", TokenType.LABEL),
     
-    LABEL2 ("[:]\\d{1,3}[:]", TokenType.LABEL2),
+    LABEL2 ("[:]\\d{1,7}[:]", TokenType.LABEL2),
     
     /** Regular expression representing the end of a Macro **/
     MACRO_END ("%", TokenType.MACRO_END),
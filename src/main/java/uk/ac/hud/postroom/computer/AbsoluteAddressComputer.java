@@ -12,120 +12,40 @@ public class AbsoluteAddressComputer extends AbstractComputer {
     private Runnable executionThread;
     
     /** 
-     * Constructs a new Absolute 2-Address Post Room Computer
+     * Constructs a new Absolute 2-Address Post Room Computer with the default memory size
      */
     public AbsoluteAddressComputer() {
+        this(DEFAULT_MEMORY_SIZE);
+    }
+    
+    /** 
+     * Constructs a new Absolute 2-Address Post Room Computer
+     * @param memorySize Number of words of memory
+     */
+    public AbsoluteAddressComputer(int memorySize) {
+        super(memorySize);
+        
         /* The execution thread of the computer
-         * This thread controls the Post Room Computer and contains
-         * the core functionality of the Computer */
+         * This thread controls the Post Room Computer, the core 
+         * functionality is contained in executeInstruction() */
         executionThread = new Runnable() {
             public void run() {
                 
                 while(isRunning()) {                    
                     
-                    // Fetches the next instruction and decodes it into Registers
-                    fetchAndDecodeInstruction();
-                    
-                    // Increments the Program Counter
-                    incrementPC();
-                    
-                    // Perform action based on data in the Operator Port register
-                    switch(OpCode.getByValue(registerStore.readFrom(Register.OP))) {
-                        // Halt computer
-                        case HLT :
-                            // forces execution to stop
-                            forceStop(); 
-                            return;
-                            
-                        // Input instruction
-                        case INP :   
-                            // Reads input from the IOModule
-                            String input = readInput();
-                    
-                            // Writes input to specified memory location
-                            writeToMemory(Integer.parseInt(
-                                    registerStore.readFrom(Register.AF1)), input);
-                            break;
+                    // Fetches, decodes and executes the next instruction
+                    executeInstruction();
                     
-                        // Output instruction
-                        case OUT :
-                            // Writes output through the IOModule
-                            writeOutput(readFromMemory(Integer.parseInt(
-                                    registerStore.readFrom(Register.AF1))));
-                            break;
+                    // Informs instruction listeners of the executed instruction
+                    fireInstructionRetired();
                     
-                        /* Move, Mask, Addition, Substraction, Shift, and Move Effective
-                         * Address operations are handled by the ALU */
-                        case MOV :
-                        case MSK :                   
-                        case ADD : 
-                        case SUB :  
-                        case MEA :
-                        case SHF :
-                            /* Important registers used by the ALU must have
-                             * instructional data stored in them before the ALU
-                             * can be invoked */
-                            
-                            // Read the first operand of the instruction
-                            String xAddress = registerStore.readFrom(Register.AF1);
-                            
-                            // Read the second operand of the instruction
-                            String yAddress = registerStore.readFrom(Register.AF2);
-        
-                            // Write the xAddress
-                            registerStore.writeTo(Register.XA, xAddress);
-                            
-                            /* Write the xAddressType (Always memory in the Absolute
-                             * Address machine */
-                            registerStore.writeTo(Register.XAT, "0");
-                            
-                            // Writes the value stored at the xAddress
-                            registerStore.writeTo(Register.XV, 
-                                    readFromMemory(Integer.parseInt(xAddress)));
-                            
-                            // Write the yAddress
-                            registerStore.writeTo(Register.YA, yAddress);
-                            
-                            /* Write the yAddressType (Always memory in the Absolute
-                             * Address machine */
-                            registerStore.writeTo(Register.YAT, "0");
-                            
-                            // Writes the value stored at the yAddress
-                            registerStore.writeTo(Register.YV, 
-                                    readFromMemory(Integer.parseInt(yAddress)));
-
-                            /* Writes the destination address (same as the xAddress
-                             * as this is a 2-address implementation */
-                            registerStore.writeTo(Register.ZA, xAddress);
-                            
-                            /* Write the zAddressType (Always memory in the Absolute
-                             * Address machine */
-                            registerStore.writeTo(Register.ZAT, "0");
-                            
-                            // Invokes the ALU to perform the operation
-                            alu.invoke();    
-                    
-                            // Writes the result to memory
-                            writeToMemory(
-                                    Integer.parseInt(registerStore.readFrom(Register.ZA)), 
-                                    registerStore.readFrom(Register.ZV));
-                            break;
-                    
-                        // Jump instruction
-                        case JMP : 
-                            // Gets the machine code representation of the condition
-                            String condition = registerStore.readFrom(Register.AF1);
-                            
-                            // Checks if the condition evalutes to true
-                            if(conditionMatches(Condition.getByValue(condition))) {
-                                // Jumps the Program counter to the specified address
-                                setPC(Integer.parseInt(registerStore.readFrom(Register.AF2)));
-                            }
-                            break;
-                    }
+                    // Stops the computer if an execution limit has been exceeded
+                    checkLimits();
                     
                     // Pauses the computer for a specified amount of time
-                    pauseExecution();
+                    if(isRunning()) {
+                        pauseExecution();
+                    }
                 }
             }
         };
@@ -135,4 +55,108 @@ public class AbsoluteAddressComputer extends AbstractComputer {
     protected Runnable getExecutionThread() {
         return executionThread;
     }
+    
+    /**
+     * Fetches, decodes and executes the next instruction
+     */
+    protected void executeInstruction() {
+        // Fetches the next instruction and decodes it into Registers
+        DecodedInstruction instruction = fetchAndDecodeInstruction();
+        
+        // Malformed instructions stop the computer
+        if(instruction == null) {
+            return;
+        }
+        
+        // Increments the Program Counter
+        incrementPC();
+        
+        // Perform action based on the decoded OpCode
+        switch(instruction.getOpCode()) {
+            // Halt computer
+            case HLT :
+                // forces execution to stop
+                forceStop(); 
+                return;
+                
+            // Input instruction
+            case INP :   
+                // Reads input from the IOModule
+                int input = readInput();
+        
+                // Writes input to specified memory location
+                writeToMemory(instruction.getOperand1().getField(), input);
+                break;
+        
+            // Output instruction
+            case OUT :
+                // Writes output through the IOModule
+                writeOutput(readFromMemory(instruction.getOperand1().getField()));
+                break;
+        
+            /* Move, Mask, Addition, Substraction, Shift, and Move Effective
+             * Address operations are handled by the ALU */
+            case MOV :
+            case MSK :                   
+            case ADD : 
+            case SUB :  
+            case MEA :
+            case SHF :
+                /* Important registers used by the ALU must have
+                 * instructional data stored in them before the ALU
+                 * can be invoked */
+                
+                // Read the first operand of the instruction
+                int xAddress = instruction.getOperand1().getField();
+                
+                // Read the second operand of the instruction
+                int yAddress = instruction.getOperand2().getField();
+
+                // Write the xAddress
+                registerStore.write(Register.XA, xAddress);
+                
+                /* Write the xAddressType (Always memory in the Absolute
+                 * Address machine */
+                registerStore.write(Register.XAT, 0);
+                
+                // Writes the value stored at the xAddress
+                registerStore.write(Register.XV, readFromMemory(xAddress));
+                
+                // Write the yAddress
+                registerStore.write(Register.YA, yAddress);
+                
+                /* Write the yAddressType (Always memory in the Absolute
+                 * Address machine */
+                registerStore.write(Register.YAT, 0);
+                
+                // Writes the value stored at the yAddress
+                registerStore.write(Register.YV, readFromMemory(yAddress));
+
+                /* Writes the destination address (same as the xAddress
+                 * as this is a 2-address implementation */
+                registerStore.write(Register.ZA, xAddress);
+                
+                /* Write the zAddressType (Always memory in the Absolute
+                 * Address machine */
+                registerStore.write(Register.ZAT, 0);
+                
+                // Invokes the ALU to perform the operation
+                alu.invoke();    
+        
+                // Writes the result to memory
+                writeToMemory(
+                        registerStore.read(Register.ZA), 
+                        registerStore.read(Register.ZV));
+                break;
+        
+            // Jump instruction
+            case JMP : 
+                // Checks if the condition evalutes to true
+                if(conditionMatches(instruction.getCondition())) {
+                    // Jumps the Program counter to the specified address
+                    setPC(instruction.getOperand2().getField());
+                }
+                break;
+        }
+    }
 }
\ No newline at end of file
@@ -4,26 +4,128 @@ import uk.ac.hud.postroom.*;
 import uk.ac.hud.postroom.event.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Abstract implementation of the Post Room Computer
  * @author Richard Walton (c0410542@hud.ac.uk)
  */
 public abstract class AbstractComputer implements Computer {
-
+    
     // Thread used to perform execution
     private Runnable executionThread;
     
+    // Worker thread currently executing the execution thread
+    private volatile Thread executionWorker;
+    
+    // Number of executions requested - an execution waiting for the worker
+    // of the previous one is dropped when another is requested
+    private final AtomicLong executionRequests = new AtomicLong();
+    
+    // Whether compiled code has run since listeners were last informed of 
+    // the state (only used by the worker thread)
+    private boolean compiledUnreported;
+    
+    // Worker thread waiting for input (null if none) - guarded by inputLock
+    private Thread inputWorker;
+    
+    // Lock guarding the worker waiting for input
+    private final Object inputLock = new Object();
+    
+    // Creates the worker threads which execute programs
+    private ThreadFactory threadFactory;
+    
+    // State of the execution thread - the only field read on every instruction
+    private AtomicReference<RunState> runState;
+    
     // Instructions to be executed
     private Instruction[] instructions;
     
+    // Instructions to be executed - one per address, sorted by memory address
+    private Instruction[] instructionMap;
+    
+    // Memory address of each instruction in the instruction map
+    private int[] instructionAddresses;
+    
+    // Words of each run of consecutive instruction addresses loaded on reset (built lazily)
+    private int[][] programImages;
+    
+    // Memory address of the first word of each program image
+    private int[] programBases;
+    
+    // Memory address of each source line - keyed by source file then line number
+    private Map<SourceFile, Map<Integer, Integer>> lineMap;
+    
+    // Breakpoints set by memory address
     private int[] breakpoints;
     
+    // Addresses to break on (breakpoints and instructions marked as breakpoints)
+    private BitSet breakpointSet;
+    
+    // Conditional breakpoints
+    private BreakCondition[] breakConditions;
+    
+    // Journal of executed instructions (null if execution is not journaled)
+    private ExecutionJournal journal;
+    
+    // Number of times per second a batch of instructions is executed at RATE speed
+    private static final int TICKS_PER_SECOND = 100;
+    
+    // Number of instructions executed between checks of the time limit
+    private static final int TIME_CHECK_INTERVAL = 256;
+    
+    // Maximum instructions per execution (0 = no limit)
+    private long instructionLimit;
+    
+    // Maximum time in milliseconds per execution (0 = no limit)
+    private long timeLimit;
+    
+    // Maximum memory writes per execution (0 = no limit)
+    private long memoryWriteLimit;
+    
+    // Instructions the current execution may still perform
+    private long instructionBudget;
+    
+    // Time (System.nanoTime) the current execution must finish by
+    private long deadline;
+    
+    // Memory write count the current execution must not exceed
+    private long memoryWriteCeiling;
+    
+    // Calls to checkLimits() until the time limit is next checked
+    private int timeCheckCountdown;
+    
     // Speed the computer will execution programs
     private ExecutionSpeed executionSpeed;
     
-    /** Whether the computer should continue execution **/
-    protected boolean running;
+    // Instructions executed every second at RATE speed
+    private int instructionRate;
+    
+    // Rate the current batch is being executed at (execution thread only)
+    private int batchRate;
+    
+    // Instructions executed in the current batch (execution thread only)
+    private int batchCount;
+    
+    // Time (System.nanoTime) the next batch may start (execution thread only)
+    private long batchDeadline;
+    
+    /** Number of words of memory when no size is given **/
+    public static final int DEFAULT_MEMORY_SIZE = 1000;
+    
+    // Format of the instruction words executed
+    private InstructionFormat instructionFormat;
+    
+    // Whether the code segment of the program is read-only
+    private boolean codeReadOnly;
+    
+    // First address of the code segment of the program
+    private int codeStart;
+    
+    // Address following the code segment of the program
+    private int codeEnd;
     
     /** The Arithmetic Logic Unit (ALU) of the computer **/
     protected ArithmeticLogicUnit alu;
@@ -43,31 +145,67 @@ public abstract class AbstractComputer implements Computer {
     //Listener list
     private List<ComputerListener> listeners;
     
+    // Instruction listener list
+    private List<InstructionListener> instructionListeners;
+    
+    // Cached copy of the instruction listener list (rebuilt when listeners are added / removed)
+    private InstructionListener[] instructionListenerArray;
+    
+    // Summary of the instruction being executed - reused for every instruction
+    private InstructionRetired retired;
+    
+    // Whether the instruction being executed is recorded in retired
+    private boolean retiring;
+    
     /**
-     * Constructs a new AbstractComputer
+     * Constructs a new AbstractComputer with the default memory size
      */
     public AbstractComputer() {
+        this(DEFAULT_MEMORY_SIZE);
+    }
+    
+    /**
+     * Constructs a new AbstractComputer
+     * @param memorySize Number of words of memory
+     * @throws IllegalArgumentException if the memory size is not positive
+     */
+    public AbstractComputer(int memorySize) {
+        if(memorySize <= 0) {
+            throw new IllegalArgumentException("Memory size must be positive");
+        }
+        
         // Set execution thread to something to avoid null pointer exceptions
         executionThread = new Runnable() { public void run() {} };
         
         // Set default execution speed to FULL
         this.executionSpeed = ExecutionSpeed.MEDIUM;
         
+        instructionFormat = InstructionFormat.STANDARD;
+        instructionMap = new Instruction[]{};
+        instructionAddresses = new int[]{};
+        lineMap = new HashMap<SourceFile, Map<Integer, Integer>>();
         setBreakPoints(new int[]{});
+        breakConditions = new BreakCondition[]{};
+        
+        // Virtual threads where the JVM supports them
+        threadFactory = createDefaultThreadFactory();
         
         // Must construct listener list as all components use it
         listeners = new ArrayList<ComputerListener>(); 
+        instructionListeners = new ArrayList<InstructionListener>();
+        instructionListenerArray = new InstructionListener[]{};
+        retired = new InstructionRetired();
         
         // Must construct register store first as other components use it
         registerStore = new RegisterStore(this);
-
+        
         // Construct the rest of the computer modules
         alu = new ArithmeticLogicUnit(this);
         instructionDecoder = new InstructionDecoder(this);
         ioModule = new IOModule(this);
-        memory = new Memory(this, 1000);
+        memory = new Memory(this, memorySize);
         
-        running = false;
+        runState = new AtomicReference<RunState>(RunState.STOPPED);
         
         // Add error listeners - forwards errors to general computer listeners
         instructionDecoder.addDecoderListener(new InstructionDecoderAdapter() {  
@@ -82,33 +220,38 @@ public abstract class AbstractComputer implements Computer {
             }
         });
     }
-
+    
     /**
      * Returns the thread which is used to execute a program
      * @return thread which is used to execute a program
      */
     protected abstract Runnable getExecutionThread();
-
+    
+    /**
+     * Fetches, decodes and executes the next instruction
+     */
+    protected abstract void executeInstruction();
+    
     /** @inheritDoc **/
     public ArithmeticLogicUnit getALU() {
         return alu;
     }
-
+    
     /** @inheritDoc **/
     public InstructionDecoder getInstructionDecoder() {
         return instructionDecoder;
     }
-
+    
     /** @inheritDoc **/
     public IOModule getIOModule() {
         return ioModule;
     }
-
+    
     /** @inheritDoc **/
     public Memory getMemory() {
         return memory;
     }
-
+    
     /** @inheritDoc **/
     public RegisterStore getRegisterStore() {
         return registerStore;
@@ -118,315 +261,1289 @@ public abstract class AbstractComputer implements Computer {
         return breakpoints;
     }
     
-    /** @inheritDoc **/
-    public void execute() {   
-        reset();
-        
-        executionThread = getExecutionThread();
-        
-        fireComputerStarted();
-        
-        Thread thread = new Thread(executionThread);
-        thread.setPriority(Thread.MIN_PRIORITY);
-        thread.start();
+    /**
+     * Returns whether instructions may be executed by a compiled engine - 
+     * only at FULL speed when execution can not break, is not journaled and
+     * no instruction listeners are attached
+     * @return true if compiled execution is allowed
+     */
+    protected boolean canCompile() {
+        return executionSpeed == ExecutionSpeed.FULL && !hasBreakPoints() && 
+                journal == null && instructionListenerArray.length == 0;
     }
     
-    /** @inheritDoc **/
-    public void reset() { 
-        fireComputerReset();
+    /**
+     * Sets whether executed instructions are journaled so that execution can
+     * be reversed.  Takes effect from the next execution
+     * @param enabled true to journal execution
+     */
+    public void setJournalEnabled(boolean enabled) {
+        journal = enabled ? new ExecutionJournal(registerStore, memory) : null;
         
-        if(instructions != null) {
-            for(Instruction instruction : instructions) {
-                memory.put(instruction.getMemoryLocation(), instruction.getInstruction());
-            }
-        }   
+        registerStore.setJournal(journal);
+        memory.setJournal(journal);
     }
     
     /**
-     * Returns whether the computer should be / is running
-     * @return true if the computer should be / is running
+     * Returns the journal of executed instructions
+     * @return execution journal or null if execution is not journaled
      */
-    public boolean isRunning() {
-        return running;
-    }
-    
-    /** @inheritDoc **/
-    public void setInstructions(Instruction[] instructions) {
-        this.instructions = instructions;
-    }
-
-    public Instruction[] getInstructions() {
-        return instructions;
+    public ExecutionJournal getJournal() {
+        return journal;
     }
     
-    public void setBreakPoints(int[] breakpoints) {
-        this.breakpoints = breakpoints;
+    /**
+     * Reverses execution by one instruction
+     * @return true if execution was reversed
+     */
+    public boolean stepBack() {
+        return journal != null && seekTo(journal.getPosition() - 1);
     }
     
-    /** @inheritDoc **/
-    public void setExecutionSpeed(ExecutionSpeed executionSpeed) {
-        this.executionSpeed = executionSpeed;
+    /**
+     * Restores the state after the given number of executed instructions.
+     * The computer must be paused or stopped - a stopped computer is 
+     * restarted paused so that execution can continue from the restored state
+     * @param instruction Instruction number to restore
+     * @return true if the state was restored
+     */
+    public boolean seekTo(long instruction) {
+        RunState state = runState.get();
+        
+        if(journal == null || (state != RunState.PAUSED && state != RunState.STOPPED)) {
+            return false;
+        }
+        
+        if(!journal.seek(instruction)) {
+            return false;
+        }
+        
+        alu.restoreFlag();
+        memory.takeWatchHit();
+        
+        if(state == RunState.STOPPED) {
+            resumePaused();
+        }
         
-        step(); // restarts execution at new speed
+        return true;
     }
     
     /**
-     * Causes the Computer to wait a specific amount of time (set by setExecutionSpeed)
-     * before continuing execution
+     * Reverses execution until the next instruction is at a breakpoint (or a
+     * conditional breakpoint holds) or the start of the journal is reached
+     * @return true if a breakpoint was reached
      */
-    protected void pauseExecution() {
-        try {
-            synchronized(executionThread) {
-                if(executionSpeed != ExecutionSpeed.FULL) {
-                    executionThread.wait(executionSpeed.getPauseTime());
+    public boolean runBackToBreakPoint() {
+        while(stepBack()) {
+            if(isBreakPoint(registerStore.getWord(Register.PC))) {
+                return true;
+            }
+            
+            for(BreakCondition condition : breakConditions) {
+                if(condition.test(registerStore, memory)) {
+                    return true;
                 }
             }
-        }catch (InterruptedException e) {
-            e.printStackTrace();
         }
+        
+        return false;
     }
     
-    /** @inheritDoc **/
-    public void step() {
-        synchronized(executionThread) {
-            executionThread.notify();
-        }
+    /**
+     * Restarts the execution thread of a stopped computer in the PAUSED state
+     * without resetting it
+     */
+    private void resumePaused() {
+        startExecution(new Runnable() {
+            public void run() {
+                setExecutionSpeed(ExecutionSpeed.STEP);
+                runState.set(RunState.PAUSED);
+            }
+        }, true, true);
     }
     
-    /** @inheritDoc **/
-    public void forceStop() {
-        running = false;
+    /**
+     * Stops the current execution and, once its worker thread has finished,
+     * prepares the computer and (optionally) starts a new worker.  A stopped
+     * worker waiting for input is interrupted - if it has still not finished 
+     * the new worker waits for it, so the calling thread (e.g. the event 
+     * dispatch thread) is never blocked.  An execution waiting for the 
+     * previous worker is dropped if another execution is requested
+     * @param setup Prepares the computer - must not run alongside the previous worker
+     * @param start Whether to start executing once the computer is prepared
+     * @param paused Whether the worker should wait for a step before executing
+     */
+    private void startExecution(final Runnable setup, final boolean start, final boolean paused) {
+        final long request = executionRequests.incrementAndGet();
         
-        fireComputerStopped();
+        stopExecution();
+        
+        final Thread previous = executionWorker;
+        
+        if(previous == null || previous == Thread.currentThread() || !previous.isAlive()) {
+            setup.run();
+            
+            if(start) {
+                startWorker(paused);
+            }
+            return;
+        }
+        
+        Thread thread = threadFactory.newThread(new Runnable() {
+            public void run() {
+                try {
+                    previous.join();
+                }catch (InterruptedException e) {
+                    return;
+                }
+                
+                try {
+                    if(request != executionRequests.get()) {
+                        return;
+                    }
+                    
+                    setup.run();
+                    
+                    // A stop requested while the computer was prepared must not be lost
+                    if(!start || request != executionRequests.get()) {
+                        return;
+                    }
+                    
+                    runWorker(paused);
+                }catch (RuntimeException e) {
+                    fireComputerError(e);
+                }
+            }
+        });
+        executionWorker = thread;
+        thread.start();
     }
-
+    
+    /**
+     * Returns whether any breakpoints, conditional breakpoints or memory 
+     * watchpoints are set
+     * @return true if execution may break
+     */
+    public boolean hasBreakPoints() {
+        return !breakpointSet.isEmpty() || breakConditions.length > 0 || memory.hasWatchPoints();
+    }
+    
+    /**
+     * Returns whether execution breaks at the given address
+     * @param address Memory address
+     * @return true if a breakpoint is set on the address
+     */
+    public boolean isBreakPoint(int address) {
+        return address >= 0 && breakpointSet.get(address);
+    }
+    
     /** @inheritDoc **/
-    public void addComputerListener(ComputerListener listener) {
-        if(listener != null) listeners.add(listener);
+    public void execute() {   
+        // The previous worker must finish before the computer is reset
+        startExecution(new Runnable() {
+            public void run() {
+                reset();
+                
+                executionThread = getExecutionThread();
+                
+                fireComputerStarted();
+            }
+        }, true, false);
     }
-
+    
     /** @inheritDoc **/
-    public ComputerListener[] getComputerListeners() {
-        return listeners.toArray(new ComputerListener[]{});
+    public void execute(final ComputerState state) {
+        checkMemorySize(state);
+        
+        startExecution(new Runnable() {
+            public void run() {
+                restoreState(state);
+                
+                executionThread = getExecutionThread();
+                
+                fireComputerStarted();
+            }
+        }, true, false);
     }
-
+    
     /** @inheritDoc **/
-    public void removeComputerListener(ComputerListener listener) {
-        listeners.remove(listener);
+    public void resume() {
+        // The previous worker must finish before the state is used
+        startExecution(new Runnable() {
+            public void run() {
+                executionThread = getExecutionThread();
+                
+                fireComputerStarted();
+            }
+        }, true, false);
     }
     
-    /**
-     * Informs attached listeners that the computer has started execution
-     */
-    protected void fireComputerStarted() {
-        running = true;
+    /** @inheritDoc **/
+    public Computer fork() {
+        RunState state = runState.get();
         
-        for(ComputerListener listener : getComputerListeners()) {
-            listener.computerStarted(this);
+        if(state != RunState.PAUSED && state != RunState.STOPPED) {
+            throw new IllegalStateException("Only a paused or stopped computer can be forked");
         }
-    }
-    
-    /**
-     * Informs attached listeners that the computer has stopped execution
-     */
-    protected void fireComputerStopped() {
-        running = false;
         
-        for(ComputerListener listener : getComputerListeners()) {
-            listener.computerStopped(this);
+        AbstractComputer computer;
+        
+        try {
+            computer = getClass().getDeclaredConstructor(int.class).newInstance(memory.size());
+        }catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to construct a " + getClass().getName(), e);
+        }
+        
+        // Program, debugging and execution settings
+        computer.setInstructions(instructions);
+        computer.setInstructionFormat(instructionFormat);
+        computer.setCodeReadOnly(codeReadOnly);
+        computer.setBreakPoints(breakpoints);
+        computer.breakConditions = breakConditions;
+        computer.executionSpeed = executionSpeed;
+        computer.instructionRate = instructionRate;
+        computer.instructionLimit = instructionLimit;
+        computer.timeLimit = timeLimit;
+        computer.memoryWriteLimit = memoryWriteLimit;
+        computer.threadFactory = threadFactory;
+        computer.ioModule.setIODevice(ioModule.getIODevice());
+        
+        // Array memory is converted to pages so that it can be shared copy-on-write
+        if(memory.getWordStore() instanceof ArrayWordStore) {
+            int[][] pages = memory.snapshotPages();
+            
+            PagedWordStore store = new PagedWordStore(memory.size());
+            for(int page = 0; page < pages.length; page++) {
+                store.restorePage(page, pages[page]);
+            }
+            
+            memory.setWordStore(store);
         }
+        
+        computer.memory.setWordStore(memory.getWordStore().fork());
+        
+        long[] registers = new long[Register.values().length];
+        registerStore.snapshot(registers);
+        computer.registerStore.restore(registers);
+        computer.alu.restoreFlag();
+        
+        return computer;
     }
     
-    /**
-     * Informs attached listeners that the computer has been reset
-     */
-    protected void fireComputerReset() {
-        running = false;
+    /** @inheritDoc **/
+    public ComputerState snapshot() {
+        long[] registers = new long[Register.values().length];
         
-        for(ComputerListener listener : getComputerListeners()) {
-            listener.computerReset(this);
-        }
+        registerStore.snapshot(registers);
+        
+        // Memory is captured page by page - zero pages are not held
+        return new ComputerState(registers, memory.size(), memory.snapshotPages());
     }
     
-    protected void fireBreakPointHit(int breakpoint) {
+    /** @inheritDoc **/
+    public void restore(final ComputerState state) {
+        checkMemorySize(state);
         
-        for(ComputerListener listener : getComputerListeners()) {
-            listener.breakPointHit(this, breakpoint);
-        }
+        // The previous worker must not write over the restored state
+        startExecution(new Runnable() {
+            public void run() {
+                restoreState(state);
+            }
+        }, false, false);
     }
     
     /**
-     * Informs attached listeners that the computer has encountered the given
-     * error and then forces the computer to stop
-     * @param error Error which has occured
+     * Checks that the given state was captured from a memory of the same size
+     * @param state State to check
+     * @throws IllegalArgumentException if the state does not fit the computer
      */
-    protected void fireComputerError(Throwable error) {
-        running = false;
-        
-        for(ComputerListener listener : getComputerListeners()) {
-            listener.computerError(this, error);
+    private void checkMemorySize(ComputerState state) {
+        if(state.getMemorySize() != memory.size()) {
+            throw new IllegalArgumentException("State memory size " + state.getMemorySize() + 
+                    " does not match computer memory size " + memory.size());
         }
     }
+    
     /**
-     * Increments the Program Counter by one
+     * Restores the memory and registers from the given state
+     * @param state State to restore
      */
-    protected void incrementPC() {
-        int pc = Integer.parseInt(registerStore.readFrom(Register.PC));
-        
-        pc++;
+    private void restoreState(ComputerState state) {
+        registerStore.restore(state.getRegisters());
+        memory.restorePages(state.getPages());
         
-        setPC(pc);
+        alu.restoreFlag();
+        memory.takeWatchHit();
     }
     
     /**
-     * Sets the Program Counter
-     * @param pc New value for the Program counter
+     * Starts a worker thread running the execution thread
+     * @param paused Whether the worker should wait for a step before executing
      */
-    protected void setPC(int pc) {
-        registerStore.writeTo(Register.PC, Integer.toString(pc));
+    private void startWorker(final boolean paused) {
+        Thread thread = threadFactory.newThread(new Runnable() {
+            public void run() {
+                runWorker(paused);
+            }
+        });
+        executionWorker = thread;
+        thread.start();
     }
     
     /**
-     * Invokes the InstructionDecoder to decoder the next instruction
+     * Runs the execution thread on the current worker thread
+     * @param paused Whether to wait for a step before executing
      */
-    protected void fetchAndDecodeInstruction() {
-        int nextInstruction = Integer.parseInt(registerStore.readFrom(Register.PC));
-        registerStore.writeTo(Register.IR, readFromMemory(nextInstruction));
-        
-        instructionDecoder.invoke();
+    private void runWorker(boolean paused) {
+        final Runnable program = executionThread;
         
-        for(int breakpoint : getBreakPoints()) {
-            if(nextInstruction == breakpoint) {
-                fireBreakPointHit(breakpoint);
-                ioModule.getIODevice().showOutput("Hit breakpoint");
-                setExecutionSpeed(ExecutionSpeed.STEP);
+        try {
+            if(paused) {
                 pauseExecution();
             }
+            
+            program.run();
+        }catch (RuntimeException e) {
+            // Report unexpected failures (e.g. invalid registers) as computer errors
+            fireComputerError(e);
         }
+        
+        fireCompiledStateChanged();
     }
     
-    /**
-     * Invokes Memory to perform a read operation
-     * @param address Address to read from
-     * @return The value at the given address in memory
-     */
-    protected String readFromMemory(int address) {
-        registerStore.writeTo(Register.MAR, Integer.toString(address));
-        registerStore.writeTo(Register.MRW, Integer.toString(0));
+    /** @inheritDoc **/
+    public void reset() { 
+        fireComputerReset();
         
-        memory.invoke();
+        // An instruction interrupted by the reset is never reported
+        retiring = false;
         
-        return registerStore.readFrom(Register.MDR);
-    }
-    
-    /**
-     * Invokes Memory to perform a write operation
-     * @param address Address to write to
-     * @param value Value to write
-     */
-    protected void writeToMemory(int address, String value) {
-        registerStore.writeTo(Register.MAR, Integer.toString(address));
-        registerStore.writeTo(Register.MDR, value);
-        registerStore.writeTo(Register.MRW, Integer.toString(1));
+        if(instructions != null && instructions.length > 0) {
+            if(programImages == null) {
+                buildProgramImages();
+            }
             
-        memory.invoke(); 
+            // Loads each run of the program with a single copy
+            for(int i = 0; i < programImages.length; i++) {
+                memory.load(programBases[i], programImages[i]);
+            }
+        }
     }
-       
+    
     /**
-     * Invokes the IOModule to get input
-     * @return Information recieved from the IODevice attached to the IOModule
+     * Builds the images of memory words loaded on reset from the instructions
+     * - one image per run of consecutive addresses, so unused addresses 
+     * between instructions are never copied
      */
-    protected String readInput() {
-        registerStore.writeTo(Register.IOT, "0");
+    private void buildProgramImages() {
+        List<int[]> images = new ArrayList<int[]>();
+        List<Integer> bases = new ArrayList<Integer>();
         
-        ioModule.invoke();
+        int start = 0;
         
-        return registerStore.readFrom(Register.IOB);
-    }
-    
-    /**
-     * Invokes the IOModule to output the given information
-     * @param output Information to output
+        while(start < instructionMap.length) {
+            int end = start + 1;
+            
+            while(end < instructionMap.length && 
+                    instructionAddresses[end] == instructionAddresses[end - 1] + 1) {
+                end++;
+            }
+            
+            int[] image = new int[end - start];
+            for(int i = start; i < end; i++) {
+                image[i - start] = instructionMap[i].getWord();
+            }
+            
+            images.add(image);
+            bases.add(instructionAddresses[start]);
+            
+            start = end;
+        }
+        
+        int[] programBases = new int[bases.size()];
+        for(int i = 0; i < programBases.length; i++) {
+            programBases[i] = bases.get(i);
+        }
+        
+        this.programBases = programBases;
+        this.programImages = images.toArray(new int[][]{});
+    }
+    
+    /**
+     * Sets the factory used to create the worker thread of each execution
+     * @param threadFactory factory used to create execution threads
      */
-    protected void writeOutput(String output) {
-        registerStore.writeTo(Register.IOT, "1");
-        registerStore.writeTo(Register.IOB, output);
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        if(threadFactory == null) {
+            throw new IllegalArgumentException("Thread factory must not be null");
+        }
         
-        ioModule.invoke();
+        this.threadFactory = threadFactory;
     }
     
     /**
-     * Returns whether the given condition matches the flag register
-     * @param condition Condition to match
-     * @return true if the condition matches
+     * Returns the factory used to create the worker thread of each execution
+     * @return factory used to create execution threads
      */
-    protected boolean conditionMatches(Condition condition) {
-        Flag flag = new Flag(registerStore.readFrom(Register.FLG));
-
-        boolean doJMP = false;
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+    
+    /**
+     * Returns whether the computer should be / is running
+     * @return true if the computer should be / is running
+     */
+    public boolean isRunning() {
+        return runState.get() != RunState.STOPPED;
+    }
+    
+    /**
+     * Returns the state of the execution thread
+     * @return current run state
+     */
+    public RunState getRunState() {
+        return runState.get();
+    }
+    
+    /** @inheritDoc **/
+    public void setInstructions(Instruction[] instructions) {
+        this.instructions = instructions;
+        this.programImages = null;
         
-        switch(condition) {
-            case NVR : // never, always return false
-                doJMP = false;
-                break;
-                
-            case LWY : // always, always return true
-                doJMP = true;
-                break;
-                
-            case LTZ : // less than zero
-                doJMP = flag.isNegative();
-                break;
-                
-            case LEZ : // less than or equal to zero
-                doJMP = flag.isNegative() || flag.isZero();
-                break;
-                
-            case EQZ : // equal to zero
-                doJMP = flag.isZero();
-                break;
+        // Map memory addresses and source lines to instructions
+        mapInstructions(instructions != null ? instructions : new Instruction[]{});
+        lineMap = new HashMap<SourceFile, Map<Integer, Integer>>();
+        
+        if(instructions != null) {
+            for(Instruction instruction : instructions) {
+                Map<Integer, Integer> lines = lineMap.get(instruction.getSourceFile());
                 
-            case NEZ : // not equal to zero
-                doJMP = !flag.isZero();
-                break;
-                       
-            case GEZ : // greater or equal to zero
-                doJMP = !flag.isNegative() || flag.isZero();
-                break;
+                if(lines == null) {
+                    lines = new HashMap<Integer, Integer>();
+                    lineMap.put(instruction.getSourceFile(), lines);
+                }
                 
-            case GTZ : // greater than zero
-                doJMP = !flag.isNegative() && !flag.isZero();
-                break;
+                lines.put(instruction.getLineNo(), instruction.getMemoryLocation());
+            }
+        }
+        
+        updateBreakPoints();
+        findCodeSegment();
+    }
+    
+    /**
+     * Sorts the instructions by memory address for lookup by binary search.
+     * Only the last instruction at an address is kept (as it is the one 
+     * loaded into memory)
+     * @param instructions Instructions to map
+     */
+    private void mapInstructions(Instruction[] instructions) {
+        Instruction[] sorted = instructions.clone();
+        
+        // Stable - instructions at the same address stay in program order
+        Arrays.sort(sorted, new Comparator<Instruction>() {
+            public int compare(Instruction a, Instruction b) {
+                return Integer.compare(a.getMemoryLocation(), b.getMemoryLocation());
+            }
+        });
+        
+        int count = 0;
+        
+        for(Instruction instruction : sorted) {
+            if(count > 0 && sorted[count - 1].getMemoryLocation() == instruction.getMemoryLocation()) {
+                count--;
+            }
+            
+            sorted[count++] = instruction;
+        }
+        
+        int[] addresses = new int[count];
+        for(int i = 0; i < count; i++) {
+            addresses[i] = sorted[i].getMemoryLocation();
+        }
+        
+        instructionMap = Arrays.copyOf(sorted, count);
+        instructionAddresses = addresses;
+    }
+    
+    /**
+     * Finds the code segment of the program - the run of consecutive code
+     * instructions starting at the lowest code address.  Data and unused 
+     * addresses end the segment
+     */
+    private void findCodeSegment() {
+        codeStart = 0;
+        codeEnd = 0;
+        
+        for(int i = 0; i < instructionMap.length; i++) {
+            if(instructionMap[i].isCode()) {
+                codeStart = instructionAddresses[i];
+                codeEnd = codeStart + 1;
                 
-            case CRY : // carry 
-                doJMP = flag.isCarry();
-                break;
+                while(++i < instructionMap.length && instructionAddresses[i] == codeEnd &&
+                        instructionMap[i].isCode()) {
+                    codeEnd++;
+                }
                 
-            case NCRY : // not carry
-                doJMP = !flag.isCarry();
                 break;
+            }
+        }
+        
+        applyCodeProtection();
+    }
+    
+    /**
+     * Marks the code segment of memory read-only if code is protected
+     */
+    private void applyCodeProtection() {
+        if(codeReadOnly) {
+            memory.setReadOnly(codeStart, codeEnd);
+        }else {
+            memory.setReadOnly(0, 0);
+        }
+    }
+    
+    /** @inheritDoc **/
+    public void setCodeReadOnly(boolean codeReadOnly) {
+        this.codeReadOnly = codeReadOnly;
+        
+        applyCodeProtection();
+    }
+    
+    /** @inheritDoc **/
+    public boolean isCodeReadOnly() {
+        return codeReadOnly;
+    }
+    
+    /** @inheritDoc **/
+    public void setInstructionFormat(InstructionFormat instructionFormat) {
+        this.instructionFormat = instructionFormat;
+        
+        // Cached instructions were decoded using the previous format
+        memory.getDecodeCache().clear();
+    }
+    
+    /** @inheritDoc **/
+    public InstructionFormat getInstructionFormat() {
+        return instructionFormat;
+    }
+    
+    /** @inheritDoc **/
+    public Instruction getInstructionAt(int address) {
+        int index = Arrays.binarySearch(instructionAddresses, address);
+        
+        return index >= 0 ? instructionMap[index] : null;
+    }
+    
+    public Instruction[] getInstructions() {
+        return instructions;
+    }
+    
+    public void setBreakPoints(int[] breakpoints) {
+        this.breakpoints = breakpoints;
+        
+        updateBreakPoints();
+    }
+    
+    /** @inheritDoc **/
+    public void setBreakPointLines(SourceFile sourceFile, int[] lineNos) {
+        List<Integer> addresses = new ArrayList<Integer>();
+        Map<Integer, Integer> lines = lineMap.get(sourceFile);
+        
+        if(lines != null) {
+            for(int lineNo : lineNos) {
+                Integer address = lines.get(lineNo);
                 
-            case VFL : // overflow
-                doJMP = flag.isOverflow();
+                if(address != null) {
+                    addresses.add(address);
+                }
+            }
+        }
+        
+        int[] breakpoints = new int[addresses.size()];
+        for(int i = 0; i < breakpoints.length; i++) {
+            breakpoints[i] = addresses.get(i);
+        }
+        
+        setBreakPoints(breakpoints);
+    }
+    
+    /** @inheritDoc **/
+    public BreakCondition addBreakCondition(String expression) {
+        BreakCondition condition = new BreakCondition(expression);
+        
+        List<BreakCondition> conditions = new ArrayList<BreakCondition>(Arrays.asList(breakConditions));
+        conditions.add(condition);
+        breakConditions = conditions.toArray(new BreakCondition[]{});
+        
+        return condition;
+    }
+    
+    /** @inheritDoc **/
+    public void removeBreakCondition(BreakCondition condition) {
+        List<BreakCondition> conditions = new ArrayList<BreakCondition>(Arrays.asList(breakConditions));
+        conditions.remove(condition);
+        breakConditions = conditions.toArray(new BreakCondition[]{});
+    }
+    
+    /**
+     * Rebuilds the set of addresses to break on from the breakpoint addresses
+     * and the instructions marked as breakpoints
+     */
+    private void updateBreakPoints() {
+        BitSet breakpointSet = new BitSet();
+        
+        for(int breakpoint : breakpoints) {
+            if(breakpoint >= 0) {
+                breakpointSet.set(breakpoint);
+            }
+        }
+        
+        for(Instruction instruction : instructionMap) {
+            if(instruction.isBreakPoint()) {
+                breakpointSet.set(instruction.getMemoryLocation());
+            }
+        }
+        
+        this.breakpointSet = breakpointSet;
+    }
+    
+    /** @inheritDoc **/
+    public void setInstructionLimit(long instructions) {
+        this.instructionLimit = Math.max(0, instructions);
+    }
+    
+    /** @inheritDoc **/
+    public void setTimeLimit(long milliseconds) {
+        this.timeLimit = Math.max(0, milliseconds);
+    }
+    
+    /** @inheritDoc **/
+    public void setMemoryWriteLimit(long writes) {
+        this.memoryWriteLimit = Math.max(0, writes);
+    }
+    
+    /**
+     * Returns the speed the computer executes programs at
+     * @return current execution speed
+     */
+    public ExecutionSpeed getExecutionSpeed() {
+        return executionSpeed;
+    }
+    
+    /** @inheritDoc **/
+    public void setExecutionSpeed(ExecutionSpeed executionSpeed) {
+        this.executionSpeed = executionSpeed;
+        
+        // Resume / pause a running computer at the new speed
+        RunState state;
+        do {
+            state = runState.get();
+            
+            if(state == RunState.STOPPED) {
+                return;
+            }
+        }while(!runState.compareAndSet(state, getInitialRunState()));
+        
+        LockSupport.unpark(executionWorker);
+    }
+    
+    /** @inheritDoc **/
+    public void setInstructionRate(int instructionsPerSecond) {
+        if(instructionsPerSecond <= 0) {
+            throw new IllegalArgumentException("Instruction rate must be positive");
+        }
+        
+        this.instructionRate = instructionsPerSecond;
+        
+        setExecutionSpeed(ExecutionSpeed.RATE);
+    }
+    
+    /**
+     * Returns the number of instructions executed every second at RATE speed
+     * @return instructions executed per second
+     */
+    public int getInstructionRate() {
+        return instructionRate;
+    }
+    
+    /**
+     * Causes the Computer to wait a specific amount of time (set by setExecutionSpeed)
+     * before continuing execution.  At STEP speed the computer waits until
+     * step() is called
+     */
+    protected void pauseExecution() {
+        RunState state = runState.get();
+        
+        if(state == RunState.RUNNING) {
+            ExecutionSpeed speed = executionSpeed;
+            
+            if(speed == ExecutionSpeed.RATE) {
+                pauseBatch();
+            }else if(speed != ExecutionSpeed.FULL) {
+                // step() or a change of speed ends the pause early
+                LockSupport.parkNanos(this, speed.getPauseTime() * 1000000L);
+            }
+            return;
+        }
+        
+        // One instruction has been executed - pause again
+        if(state == RunState.STEPPING) {
+            runState.compareAndSet(RunState.STEPPING, RunState.PAUSED);
+        }
+        
+        while(runState.get() == RunState.PAUSED) {
+            LockSupport.park(this);
+        }
+    }
+    
+    /**
+     * Counts an instruction executed at RATE speed.  Instructions are executed
+     * in batches, one batch per tick - once a batch is complete the computer
+     * parks until the deadline of the next tick
+     */
+    private void pauseBatch() {
+        int rate = instructionRate;
+        
+        // Start a new schedule when the rate changes
+        if(rate != batchRate) {
+            batchRate = rate;
+            batchCount = 0;
+            batchDeadline = System.nanoTime();
+        }
+        
+        int batchSize = Math.max(1, rate / TICKS_PER_SECOND);
+        
+        if(++batchCount < batchSize) {
+            return;
+        }
+        
+        batchCount = 0;
+        
+        long tick = batchSize * 1000000000L / rate;
+        long now = System.nanoTime();
+        
+        batchDeadline += tick;
+        
+        // Don't try to catch up after falling behind (e.g. waiting for input)
+        if(now - batchDeadline > tick) {
+            batchDeadline = now;
+        }
+        
+        long wait;
+        while((wait = batchDeadline - System.nanoTime()) > 0 && 
+                runState.get() == RunState.RUNNING && 
+                executionSpeed == ExecutionSpeed.RATE && instructionRate == rate) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+    
+    /** @inheritDoc **/
+    public void step() {
+        runState.compareAndSet(RunState.PAUSED, RunState.STEPPING);
+        
+        LockSupport.unpark(executionWorker);
+    }
+    
+    /** @inheritDoc **/
+    public void forceStop() {
+        fireComputerStopped();
+    }
+    
+    /**
+     * Returns a factory which creates virtual threads if the JVM supports 
+     * them (Java 21+), otherwise minimum priority platform threads
+     * @return default execution thread factory
+     */
+    private static ThreadFactory createDefaultThreadFactory() {
+        try {
+            // Thread.ofVirtual().factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+        }catch (ReflectiveOperationException e) {
+            // Virtual threads not available
+        }
+        
+        return new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+    }
+    
+    /**
+     * Returns the state a running computer should be in at the current speed
+     * @return PAUSED at STEP speed, otherwise RUNNING
+     */
+    private RunState getInitialRunState() {
+        return executionSpeed == ExecutionSpeed.STEP ? RunState.PAUSED : RunState.RUNNING;
+    }
+    
+    /**
+     * Stops the execution thread at the next instruction boundary
+     */
+    private void stopExecution() {
+        runState.set(RunState.STOPPED);
+        
+        LockSupport.unpark(executionWorker);
+        
+        // Unblock a worker waiting for input
+        synchronized(inputLock) {
+            if(inputWorker != null && inputWorker != Thread.currentThread()) {
+                inputWorker.interrupt();
+            }
+        }
+    }
+    
+    /** @inheritDoc **/
+    public void addComputerListener(ComputerListener listener) {
+        if(listener != null) listeners.add(listener);
+    }
+    
+    /** @inheritDoc **/
+    public ComputerListener[] getComputerListeners() {
+        return listeners.toArray(new ComputerListener[]{});
+    }
+    
+    /** @inheritDoc **/
+    public void removeComputerListener(ComputerListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /** @inheritDoc **/
+    public void addInstructionListener(InstructionListener listener) {
+        if(listener != null) {
+            instructionListeners.add(listener);
+            instructionListenerArray = instructionListeners.toArray(new InstructionListener[]{});
+        }
+    }
+    
+    /** @inheritDoc **/
+    public InstructionListener[] getInstructionListeners() {
+        return instructionListenerArray.clone();
+    }
+    
+    /** @inheritDoc **/
+    public void removeInstructionListener(InstructionListener listener) {
+        instructionListeners.remove(listener);
+        instructionListenerArray = instructionListeners.toArray(new InstructionListener[]{});
+    }
+    
+    /**
+     * Informs attached listeners that the computer has started execution
+     */
+    protected void fireComputerStarted() {
+        batchRate = 0;
+        
+        // Start the execution limits
+        instructionBudget = instructionLimit > 0 ? instructionLimit : Long.MAX_VALUE;
+        memoryWriteCeiling = memoryWriteLimit > 0 ? 
+                memory.getWriteCount() + memoryWriteLimit : Long.MAX_VALUE;
+        deadline = System.nanoTime() + timeLimit * 1000000L;
+        timeCheckCountdown = TIME_CHECK_INTERVAL;
+        
+        // Ignore watched addresses written while loading the program
+        memory.takeWatchHit();
+        
+        if(journal != null) {
+            journal.reset();
+        }
+        
+        retired.reset();
+        retiring = false;
+        
+        runState.set(getInitialRunState());
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.computerStarted(this);
+        }
+    }
+    
+    /**
+     * Informs attached listeners that the computer has stopped execution
+     */
+    protected void fireComputerStopped() {
+        stopExecution();
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.computerStopped(this);
+        }
+    }
+    
+    /**
+     * Records that compiled code has run - compiled code writes memory 
+     * without informing memory listeners.  Called by compiled engines after
+     * each batch of compiled instructions
+     */
+    protected void compiledBatchExecuted() {
+        compiledUnreported = true;
+    }
+    
+    /**
+     * Informs memory and register listeners (e.g. the memory and register 
+     * displays) of the state left by compiled code, once execution returns
+     * to the interpreter or the worker finishes.  Does nothing if no 
+     * compiled code has run since listeners were last informed
+     */
+    private void fireCompiledStateChanged() {
+        if(!compiledUnreported) {
+            return;
+        }
+        
+        compiledUnreported = false;
+        
+        memory.fireMemoryChanged();
+        
+        registerStore.fireRegisterChanged(Register.PC);
+        registerStore.fireRegisterChanged(Register.FLG);
+        registerStore.fireRegisterChanged(Register.CAR);
+    }
+    
+    /**
+     * Informs attached listeners that the computer has been reset
+     */
+    protected void fireComputerReset() {
+        stopExecution();
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.computerReset(this);
+        }
+    }
+    
+    /**
+     * Informs attached listeners that the computer has exceeded the given 
+     * limit and then stops the computer
+     * @param limit Limit which has been exceeded
+     */
+    protected void fireLimitExceeded(ExecutionLimit limit) {
+        stopExecution();
+        
+        // The instruction being executed (if any) did not complete
+        retiring = false;
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.limitExceeded(this, limit);
+        }
+        
+        fireComputerStopped();
+    }
+    
+    protected void fireBreakPointHit(int breakpoint) {
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.breakPointHit(this, breakpoint);
+        }
+    }
+    
+    /**
+     * Informs attached listeners that the computer has encountered the given
+     * error and then forces the computer to stop
+     * @param error Error which has occured
+     */
+    protected void fireComputerError(Throwable error) {
+        stopExecution();
+        
+        // The instruction being executed (if any) did not complete
+        retiring = false;
+        
+        for(ComputerListener listener : getComputerListeners()) {
+            listener.computerError(this, error);
+        }
+    }
+    /**
+     * Returns whether the current execution may perform the given number of
+     * instructions without exceeding the instruction limit
+     * @param instructions Number of instructions
+     * @return true if the instructions are within the instruction limit
+     */
+    protected boolean hasInstructionBudget(int instructions) {
+        return instructionBudget >= instructions;
+    }
+    
+    /**
+     * Returns whether the current execution may perform the given number of
+     * memory writes without exceeding the memory write limit.  Compiled 
+     * engines check this before executing several instructions at once so 
+     * that the instruction which exceeds the limit is interpreted
+     * @param writes Number of memory writes
+     * @return true if the writes are within the memory write limit
+     */
+    protected boolean hasMemoryWriteBudget(int writes) {
+        return memory.getWriteCount() + writes <= memoryWriteCeiling;
+    }
+    
+    /**
+     * Counts the given number of instructions against the instruction limit.
+     * Callers must check hasInstructionBudget(int) first
+     * @param instructions Number of instructions performed
+     */
+    protected void retireInstructions(int instructions) {
+        instructionBudget -= instructions;
+    }
+    
+    /**
+     * Stops the computer if the memory write or time limits of the current
+     * execution have been exceeded.  Called by the execution thread after
+     * each instruction (or block of instructions)
+     */
+    protected void checkLimits() {
+        if(memory.getWriteCount() > memoryWriteCeiling) {
+            fireLimitExceeded(ExecutionLimit.MEMORY_WRITES);
+            return;
+        }
+        
+        // Reading the clock is comparatively expensive - only check it periodically
+        if(timeLimit > 0 && --timeCheckCountdown <= 0) {
+            timeCheckCountdown = TIME_CHECK_INTERVAL;
+            
+            if(System.nanoTime() - deadline > 0) {
+                fireLimitExceeded(ExecutionLimit.TIME);
+            }
+        }
+    }
+    
+    /**
+     * Increments the Program Counter by one
+     */
+    protected void incrementPC() {
+        setPC(registerStore.read(Register.PC) + 1);
+    }
+    
+    /**
+     * Sets the Program Counter
+     * @param pc New value for the Program counter
+     */
+    protected void setPC(int pc) {
+        registerStore.write(Register.PC, pc);
+    }
+    
+    /**
+     * Invokes the InstructionDecoder to decoder the next instruction
+     * @return the decoded instruction or null if the instruction is malformed
+     * or the instruction limit has been exceeded
+     */
+    protected DecodedInstruction fetchAndDecodeInstruction() {
+        // Listeners see the state left by compiled code before the instruction
+        fireCompiledStateChanged();
+        
+        int nextInstruction = registerStore.read(Register.PC);
+        
+        // Breakpoints are checked before the instruction starts
+        if(checkBreakPoints(nextInstruction)) {
+            // The computer may have been stopped or its state reversed while paused
+            if(!isRunning()) {
+                return null;
+            }
+            
+            nextInstruction = registerStore.read(Register.PC);
+        }
+        
+        if(!hasInstructionBudget(1)) {
+            fireLimitExceeded(ExecutionLimit.INSTRUCTIONS);
+            return null;
+        }
+        
+        retireInstructions(1);
+        
+        if(journal != null) {
+            journal.beginInstruction();
+        }
+        
+        registerStore.write(Register.IR, readFromMemory(nextInstruction));
+        
+        DecodedInstruction instruction = instructionDecoder.invoke(nextInstruction);
+        
+        // Record the instruction for instruction listeners
+        if(instruction != null && instructionListenerArray.length > 0) {
+            retired.begin(nextInstruction, instruction, registerStore.getWord(Register.FLG));
+            retiring = true;
+        }
+        
+        return instruction;
+    }
+    
+    /**
+     * Informs attached instruction listeners of the instruction executed by 
+     * the last call to executeInstruction().  Called by the execution thread
+     * after each instruction - does nothing if the instruction was not 
+     * recorded (no listeners were attached or no instruction was executed)
+     * or did not complete (execution was stopped by an error or limit)
+     */
+    protected void fireInstructionRetired() {
+        if(!retiring) {
+            return;
+        }
+        
+        retiring = false;
+        
+        // Operand values and results are read from the micro-registers (No listeners are fired)
+        int xValue = 0;
+        int yValue = 0;
+        int result = 0;
+        
+        switch(retired.getOpCode()) {
+            case INP :
+                result = registerStore.getWord(Register.IOB);
                 break;
-                
-            case NVFL : // not overflow
-                doJMP = !flag.isOverflow();
+            case OUT :
+                xValue = registerStore.getWord(Register.IOB);
                 break;
-                
-            case MEM : // memory 
-                doJMP = flag.isMemory();
+            case HLT :
+            case JMP :
                 break;
-                
-            case NMEM : // not memory
-                doJMP = !flag.isMemory();
-                break;                
+            default :
+                xValue = registerStore.getWord(Register.XV);
+                yValue = registerStore.getWord(Register.YV);
+                result = registerStore.getWord(Register.ZV);
+        }
+        
+        retired.end(xValue, yValue, result, 
+                registerStore.getWord(Register.FLG), registerStore.getWord(Register.PC));
+        
+        for(InstructionListener listener : instructionListenerArray) {
+            listener.instructionRetired(this, retired);
+        }
+    }
+    
+    /**
+     * Pauses execution if the next instruction is at a breakpoint, a watched
+     * address was written by the previous instruction, or a conditional 
+     * breakpoint holds
+     * @param nextInstruction Address of the next instruction
+     * @return true if execution was paused
+     */
+    private boolean checkBreakPoints(int nextInstruction) {
+        // Watched address written by the previous instruction
+        int watchHit = memory.takeWatchHit();
+        
+        if(isBreakPoint(nextInstruction)) {
+            breakExecution(nextInstruction, "Hit breakpoint");
+            return true;
+        }
+        
+        if(watchHit >= 0) {
+            breakExecution(watchHit, "Hit watchpoint " + watchHit);
+            return true;
+        }
+        
+        for(BreakCondition condition : breakConditions) {
+            if(condition.test(registerStore, memory)) {
+                breakExecution(nextInstruction, "Hit conditional breakpoint " + condition);
+                return true;
+            }
         }
-        // If the 'not' bit is set on the flag, invert the result
-        if(flag.isNot()) {
-            return !doJMP;
+        
+        return false;
+    }
+    
+    /**
+     * Informs listeners that a breakpoint was hit and pauses execution
+     * @param breakpoint Address of the breakpoint
+     * @param message Message shown on the IODevice
+     */
+    private void breakExecution(int breakpoint, String message) {
+        fireBreakPointHit(breakpoint);
+        ioModule.getIODevice().showOutput(message);
+        setExecutionSpeed(ExecutionSpeed.STEP);
+        pauseExecution();
+    }
+    
+    /**
+     * Invokes Memory to perform a read operation
+     * @param address Address to read from
+     * @return The word at the given address in memory
+     */
+    protected int readFromMemory(int address) {
+        registerStore.write(Register.MAR, address);
+        registerStore.write(Register.MRW, 0);
+        
+        memory.invoke();
+        
+        return registerStore.read(Register.MDR);
+    }
+    
+    /**
+     * Invokes Memory to perform a write operation
+     * @param address Address to write to
+     * @param value Word to write
+     */
+    protected void writeToMemory(int address, int value) {
+        registerStore.write(Register.MAR, address);
+        registerStore.write(Register.MDR, value);
+        registerStore.write(Register.MRW, 1);
+        
+        if(retiring) {
+            long writeCount = memory.getWriteCount();
+            
+            memory.invoke();
+            
+            // Only writes which succeeded are recorded
+            if(memory.getWriteCount() != writeCount) {
+                retired.recordWrite(address, value);
+            }
+            
+            return;
         }
         
-        return doJMP;
+        memory.invoke(); 
+    }
+    
+    /**
+     * Invokes the IOModule to get input.  Memory can only hold integer words so
+     * any other input causes a computer error.  The wait for input is 
+     * interrupted if the computer is stopped
+     * @return Information recieved from the IODevice attached to the IOModule
+     */
+    protected int readInput() {
+        registerStore.write(Register.IOT, 0);
+        
+        // Stopping the computer interrupts the wait for input
+        synchronized(inputLock) {
+            inputWorker = Thread.currentThread();
+        }
+        
+        try {
+            ioModule.invoke();
+        }catch (NumberFormatException e) {
+            // Input abandoned by a stop is not an error
+            if(isRunning()) {
+                fireComputerError(new Exception("Invalid input - expected an integer"));
+            }
+            
+            return 0;
+        }finally {
+            synchronized(inputLock) {
+                inputWorker = null;
+                
+                // Don't leave an interrupt meant for the input wait pending
+                Thread.interrupted();
+            }
+        }
+        
+        return registerStore.read(Register.IOB);
+    }
+    
+    /**
+     * Invokes the IOModule to output the given information
+     * @param output Information to output
+     */
+    protected void writeOutput(int output) {
+        registerStore.write(Register.IOT, 1);
+        registerStore.write(Register.IOB, output);
+        
+        ioModule.invoke();
+    }
+    
+    /**
+     * Returns whether the given condition matches the flag register
+     * @param condition Condition to match
+     * @return true if the condition matches
+     */
+    protected boolean conditionMatches(Condition condition) {
+        return Flag.matches(condition, registerStore.read(Register.FLG));
     }
 }
\ No newline at end of file
@@ -8,11 +8,22 @@ import uk.ac.hud.postroom.*;
  */
 public class ArithmeticLogicUnit extends ComputerComponent {
     
+    // Powers of ten - 10^0 to 10^18
+    private static final long[] POWERS = new long[19];
+    
+    static {
+        POWERS[0] = 1;
+        
+        for(int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+    
     // Register store of the Computer
     private RegisterStore registerStore;
     
-    // Flag of the computer
-    private Flag flag;
+    // Flag bits of the computer (see Flag)
+    private int flags;
     
     /**
      * Constructs a new ArithmeticLogicUnit for the given computer
@@ -22,8 +33,14 @@ public class ArithmeticLogicUnit extends ComputerComponent {
         super(computer);
         
         registerStore = computer.getRegisterStore();
-        
-        flag = new Flag();
+    }
+    
+    /**
+     * Reloads the flag from the FLG register - used when the register store 
+     * has been restored to an earlier state
+     */
+    protected void restoreFlag() {
+        flags = registerStore.getWord(Register.FLG) & Flag.ALL;
     }
     
     /**
@@ -33,20 +50,37 @@ public class ArithmeticLogicUnit extends ComputerComponent {
      */
     protected void invoke() {
         // Read from registers
-        String xAddress = registerStore.readFrom(Register.XA);
-        String xValue = registerStore.readFrom(Register.XV);
-        String xType = registerStore.readFrom(Register.XAT);
+        int xAddress = registerStore.read(Register.XA);
+        int xValue = registerStore.read(Register.XV);
+        int xType = registerStore.read(Register.XAT);
         
-        String yAddress = registerStore.readFrom(Register.YA);
-        String yValue = registerStore.readFrom(Register.YV);
-        String yType = registerStore.readFrom(Register.YAT);
+        int yAddress = registerStore.read(Register.YA);
+        int yValue = registerStore.read(Register.YV);
+        int yType = registerStore.read(Register.YAT);
         
-        String zAddress = registerStore.readFrom(Register.ZA);
-        String zType = registerStore.readFrom(Register.ZAT);
+        int zAddress = registerStore.read(Register.ZA);
+        int zType = registerStore.read(Register.ZAT);
 
-        String result = "0";
+        int result = calculate(OpCode.getByValue(registerStore.read(Register.OP)), 
+                xValue, yValue, yAddress, zType == 0);
         
-        switch(OpCode.getByValue(registerStore.readFrom(Register.OP))) {
+        registerStore.write(Register.ZV, result);
+    }
+    
+    /**
+     * Performs an operation directly on the given operand values and updates
+     * the FLG register (and CAR register for shift operations)
+     * @param opCode Operation to perform
+     * @param xValue Value of the first operand
+     * @param yValue Value of the second operand
+     * @param yAddress Address of the second operand (used by MEA)
+     * @param memory Whether the result will be stored in memory
+     * @return result of the operation
+     */
+    protected int calculate(OpCode opCode, int xValue, int yValue, int yAddress, boolean memory) {
+        int result = 0;
+        
+        switch(opCode) {
             case MSK :
                 result = doMSK(xValue, yValue);
                 break;
@@ -56,11 +90,11 @@ public class ArithmeticLogicUnit extends ComputerComponent {
                 break;
                 
             case ADD :
-                result = Integer.toString(Integer.parseInt(xValue) + Integer.parseInt(yValue));
+                result = xValue + yValue;
                 break;
                 
             case SUB :
-                result = Integer.toString(Integer.parseInt(xValue) - Integer.parseInt(yValue));
+                result = xValue - yValue;
                 break;
                 
             case MEA :
@@ -72,62 +106,161 @@ public class ArithmeticLogicUnit extends ComputerComponent {
                 break;
         }
         
-        int intResult = Integer.parseInt(result);
-        flag.setNegative(intResult < 0);
-        flag.setZero(intResult == 0);
-        flag.setMemory(zType.equals("0"));
+        // Overflow, not and carry bits are kept
+        flags = (flags & (Flag.OVERFLOW | Flag.NOT | Flag.CARRY)) |
+                (memory ? Flag.MEMORY : 0) |
+                (result < 0 ? Flag.NEGATIVE : 0) |
+                (result == 0 ? Flag.ZERO : 0);
+        
+        registerStore.write(Register.FLG, flags);
         
-        registerStore.writeTo(Register.FLG, flag.getMask());
-        registerStore.writeTo(Register.ZV, result);
+        return result;
     }
     
-    private String doMSK(String xValue, String yValue) {
-        while(yValue.length() < xValue.length()) {
-            yValue = yValue + "0";
-        }
+    /**
+     * Masks the digits of the given value.  The digits (and sign) of both
+     * values are aligned from the left - each digit of the value is kept 
+     * where the mask has a non-zero digit (or sign) and cleared elsewhere.
+     * Missing mask digits are zero
+     * @param xValue Value to mask
+     * @param yValue Mask
+     * @return masked value
+     */
+    private int doMSK(int xValue, int yValue) {
+        long x = Math.abs((long) xValue);
+        long y = Math.abs((long) yValue);
         
-        StringBuilder result = new StringBuilder();
-        for(int i = 0; i < xValue.length(); i++) {
-            if(yValue.charAt(i) == '0') {
-                result.append("0");
-            }else{
-                result.append(xValue.charAt(i));
+        // Number of characters in each value (including any sign)
+        int xLength = digits(x) + (xValue < 0 ? 1 : 0);
+        int yLength = digits(y) + (yValue < 0 ? 1 : 0);
+        
+        long result = 0;
+        boolean negative = false;
+        
+        for(int i = 0; i < Math.min(xLength, yLength); i++) {
+            // Signs are never masked out
+            boolean keep = (yValue < 0 && i == 0) || y / POWERS[yLength - 1 - i] % 10 != 0;
+            
+            if(keep) {
+                if(xValue < 0 && i == 0) {
+                    negative = true;
+                }else {
+                    result += x / POWERS[xLength - 1 - i] % 10 * POWERS[xLength - 1 - i];
+                }
             }
         }
         
-        return result.toString();
+        return (int) (negative ? -result : result);
     }
     
-    private String doSHF(String xValue, String yValue) {
-        StringBuilder result = new StringBuilder(xValue);
-        StringBuilder carry = new StringBuilder("0000000000");
+    /**
+     * Shifts the digits (and sign) of the given value left (positive 
+     * amounts) or right (negative amounts) within the width of the value, 
+     * filling with zeros.  Digits shifted out are kept in the CAR register, 
+     * which holds the last ten characters shifted out - a sign among them is
+     * kept with the digits which follow it (see RegisterStore.CARRY_SIGN)
+     * @param xValue Value to shift
+     * @param shiftAmount Number of places to shift
+     * @return shifted value
+     * @throws NumberFormatException if the shifted value is not a valid word
+     */
+    private int doSHF(int xValue, int shiftAmount) {
+        // Digits of the value - a sign is treated as a leading zero
+        long x = Math.abs((long) xValue);
+        int length = digits(x) + (xValue < 0 ? 1 : 0);
         
-        int shiftAmount = Integer.parseInt(yValue);
+        long shift = Math.abs((long) shiftAmount);
+        long result;
+        long carry;
+        boolean carrySign;
         
-        flag.setCarry(shiftAmount != 0);
-
-        if(shiftAmount > 0) {
-            while(shiftAmount > 0) {
-                carry.deleteCharAt(0);
-                carry.append(result.charAt(0));
-                result.deleteCharAt(0);
-                result.append("0");
-                
-                shiftAmount--;
+        flags = shiftAmount != 0 ? flags | Flag.CARRY : flags & ~Flag.CARRY;
+        
+        if(shiftAmount == 0) {
+            result = xValue;
+            carry = 0;
+            carrySign = false;
+        }else if(shiftAmount > 0) {
+            result = shift < length ? x % POWERS[(int) (length - shift)] * POWERS[(int) shift] : 0;
+            
+            // Digits shifted out followed by the zeros shifted in
+            if(shift <= length) {
+                carry = x / POWERS[(int) (length - shift)] % POWERS[10];
+            }else if(shift - length < 10) {
+                carry = x % POWERS[(int) (10 - (shift - length))] * POWERS[(int) (shift - length)];
+            }else {
+                carry = 0;
             }
+            
+            // The sign is the first character shifted out
+            carrySign = xValue < 0 && shift <= 10;
         }else {
-            while(shiftAmount < 0) {
-                carry.insert(0, result.charAt(result.length() - 1));
-                carry.deleteCharAt(carry.length() - 1);
-                result.deleteCharAt(result.length() - 1);
-                result.insert(0, "0");
-                
-                shiftAmount++;
+            result = shift < length ? x / POWERS[(int) shift] : 0;
+            
+            // Zeros shifted in followed by the digits shifted out
+            if(shift < 10) {
+                carry = x % POWERS[(int) shift] * POWERS[(int) (10 - shift)];
+            }else if(shift - 10 < POWERS.length) {
+                carry = x % POWERS[(int) Math.min(shift, POWERS.length - 1)] / POWERS[(int) (shift - 10)];
+            }else {
+                carry = 0;
             }
+            
+            // The sign is the last character shifted out
+            carrySign = xValue < 0 && shift >= length && shift - length < 10;
+        }
+        
+        registerStore.writeLong(Register.CAR, carrySign ? carry | RegisterStore.CARRY_SIGN : carry);
+        
+        // A sign which has not been shifted out is left inside the word
+        if(shiftAmount < 0 && xValue < 0 && shift < length) {
+            throw invalidShift(pad(0, (int) shift) + Integer.toString(xValue).substring(0, (int) (length - shift)));
+        }
+        
+        if(result > Integer.MAX_VALUE) {
+            throw invalidShift(pad(result, length));
+        }
+        
+        return (int) result;
+    }
+    
+    /**
+     * Returns the number of decimal digits in the given value
+     * @param value Non-negative value
+     * @return number of digits (1 for zero)
+     */
+    private static int digits(long value) {
+        int digits = 1;
+        
+        while(digits < POWERS.length && value >= POWERS[digits]) {
+            digits++;
         }
         
-        registerStore.writeTo(Register.CAR, carry.toString());
+        return digits;
+    }
+    
+    /**
+     * Returns the given value padded with leading zeros
+     * @param value Non-negative value
+     * @param width Width to pad to
+     * @return padded digits of the value
+     */
+    private static String pad(long value, int width) {
+        StringBuilder digits = new StringBuilder(Long.toString(value));
+        
+        while(digits.length() < width) {
+            digits.insert(0, '0');
+        }
         
-        return result.toString();  
+        return digits.toString();
+    }
+    
+    /**
+     * Returns the error raised when a shifted value is not a valid word
+     * @param digits Characters of the shifted value
+     * @return error to throw
+     */
+    private static NumberFormatException invalidShift(String digits) {
+        return new NumberFormatException("For input string: \"" + digits + "\"");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package uk.ac.hud.postroom.computer;
+
+import java.util.*;
+
+/**
+ * WordStore which holds every word in a single array
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ArrayWordStore implements WordStore {
+    
+    // Words indexed by address
+    private int[] words;
+    
+    /**
+     * Constructs a new ArrayWordStore holding the given number of words
+     * @param size Number of words
+     */
+    public ArrayWordStore(int size) {
+        words = new int[size];
+    }
+    
+    /** @inheritDoc **/
+    public int size() {
+        return words.length;
+    }
+    
+    /** @inheritDoc **/
+    public int read(int address) {
+        return words[address];
+    }
+    
+    /** @inheritDoc **/
+    public void write(int address, int value) {
+        words[address] = value;
+    }
+    
+    /** @inheritDoc **/
+    public void load(int address, int[] words) {
+        System.arraycopy(words, 0, this.words, address, words.length);
+    }
+    
+    /** @inheritDoc **/
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+    
+    /** @inheritDoc **/
+    public void copyTo(int[] words) {
+        System.arraycopy(this.words, 0, words, 0, this.words.length);
+    }
+    
+    /** @inheritDoc **/
+    public void copyFrom(int[] words) {
+        System.arraycopy(words, 0, this.words, 0, this.words.length);
+    }
+    
+    /**
+     * Returns a copy of this store - all the words are copied
+     * @return forked store
+     */
+    public WordStore fork() {
+        ArrayWordStore store = new ArrayWordStore(0);
+        store.words = words.clone();
+        
+        return store;
+    }
+}
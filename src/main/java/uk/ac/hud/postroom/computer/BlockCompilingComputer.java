@@ -0,0 +1,179 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+
+/**
+ * Absolute Address Post Room Computer which compiles basic blocks of 
+ * instructions and executes them directly against memory.  Compiled blocks 
+ * are only used when executing at FULL speed without breakpoints - all other 
+ * execution is interpreted.  Compiled blocks do not read or write the 
+ * micro-registers (IR, MAR, MDR, XA, XV...) or inform memory listeners
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class BlockCompilingComputer extends AbsoluteAddressComputer {
+    
+    // Decode cache of memory which also holds the compiled blocks
+    private CompiledBlockCache blockCache;
+    
+    /** 
+     * Constructs a new Block Compiling Absolute 2-Address Post Room Computer with the default memory size
+     */
+    public BlockCompilingComputer() {
+        this(DEFAULT_MEMORY_SIZE);
+    }
+    
+    /** 
+     * Constructs a new Block Compiling Absolute 2-Address Post Room Computer
+     * @param memorySize Number of words of memory
+     */
+    public BlockCompilingComputer(int memorySize) {
+        super(memorySize);
+        
+        blockCache = new CompiledBlockCache(memory.size());
+        
+        memory.setDecodeCache(blockCache);
+    }
+    
+    /** @inheritDoc **/
+    @Override protected void executeInstruction() {
+        if(canCompile()) {
+            CompiledBlock block = getCompiledBlock(registerStore.read(Register.PC));
+            
+            // Blocks which would exceed the instruction or memory write limits are interpreted
+            if(block != null && hasInstructionBudget(block.length()) && 
+                    hasMemoryWriteBudget(block.length())) {
+                retireInstructions(executeBlock(block));
+                compiledBatchExecuted();
+                return;
+            }
+        }
+        
+        // Interpret the next instruction
+        super.executeInstruction();
+    }
+    
+    /**
+     * Returns the block starting at the given address, compiling it if required
+     * @param address Start address of the block
+     * @return compiled block or null if the address must be interpreted
+     */
+    private CompiledBlock getCompiledBlock(int address) {
+        if(blockCache.isDeoptimized(address)) {
+            return null;
+        }
+        
+        CompiledBlock block = blockCache.getBlock(address);
+        
+        if(block == null) {
+            block = compileBlock(address);
+            
+            if(block != null) {
+                blockCache.putBlock(block);
+            }
+        }
+        
+        return block;
+    }
+    
+    /**
+     * Compiles the basic block starting at the given address.  The block ends 
+     * with the first JMP instruction, after MAX_BLOCK_LENGTH instructions or 
+     * before the first instruction which can not be compiled (HLT, INP, OUT or
+     * a malformed instruction)
+     * @param address Start address of the block
+     * @return compiled block or null if the first instruction can not be compiled
+     */
+    private CompiledBlock compileBlock(int address) {
+        List<DecodedInstruction> instructions = new ArrayList<DecodedInstruction>();
+        
+        for(int i = address; i < memory.size(); i++) {
+            DecodedInstruction instruction = decode(i);
+            
+            if(instruction == null) {
+                break;
+            }
+            
+            OpCode opCode = instruction.getOpCode();
+            
+            if(opCode == OpCode.HLT || opCode == OpCode.INP || opCode == OpCode.OUT) {
+                break;
+            }
+            
+            // Operands which fall outside memory are left to the interpreter to report
+            if(instruction.getOperand1().getField() >= memory.size() ||
+                    instruction.getOperand2().getField() >= memory.size()) {
+                break;
+            }
+            
+            instructions.add(instruction);
+            
+            // Jumps end the block
+            if(opCode == OpCode.JMP || instructions.size() == CompiledBlockCache.MAX_BLOCK_LENGTH) {
+                break;
+            }
+        }
+        
+        if(instructions.isEmpty()) {
+            return null;
+        }
+        
+        return new CompiledBlock(address, instructions.toArray(new DecodedInstruction[]{}), memory);
+    }
+    
+    /**
+     * Decodes the instruction at the given address using the decode cache
+     * @param address Memory address
+     * @return decoded instruction or null if the instruction is malformed
+     */
+    private DecodedInstruction decode(int address) {
+        DecodedInstruction instruction = blockCache.get(address);
+        
+        if(instruction == null) {
+            try {
+                instruction = new DecodedInstruction(memory.read(address), getInstructionFormat());
+            }catch (IllegalArgumentException e) {
+                return null;
+            }
+            
+            blockCache.put(address, instruction);
+        }
+        
+        return instruction;
+    }
+    
+    /**
+     * Executes the given compiled block and sets the Program Counter to the 
+     * next instruction to execute
+     * @param block Block to execute
+     * @return number of instructions executed
+     */
+    private int executeBlock(CompiledBlock block) {
+        OpCode[] opCodes = block.opCodes;
+        int[] x = block.x;
+        int[] y = block.y;
+        
+        for(int i = 0; i < opCodes.length; i++) {
+            if(opCodes[i] == OpCode.JMP) {
+                if(conditionMatches(block.conditions[i])) {
+                    setPC(y[i]);
+                    return i + 1;
+                }
+            }else {
+                memory.write(x[i], alu.calculate(opCodes[i], 
+                        memory.read(x[i]), memory.read(y[i]), y[i], true));
+                
+                // The block has overwritten itself or written read-only code - continue interpreting
+                if(block.isGuarded() && (!block.isValid() || !isRunning())) {
+                    setPC(block.getStart() + i + 1);
+                    return i + 1;
+                }
+            }
+        }
+        
+        setPC(block.getStart() + opCodes.length);
+        
+        return opCodes.length;
+    }
+}
@@ -0,0 +1,293 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * A conditional breakpoint expression such as "PC == 42 && R3 > 100".  The
+ * expression is parsed once into a tree of predicates which read registers 
+ * and memory directly (No listeners are fired).
+ * <p>
+ * Expressions may compare registers (R0, PC, FLG...), flag bits (FLG.zero, 
+ * FLG.negative, FLG.carry, FLG.not, FLG.overflow, FLG.memory), memory words
+ * (M[70], M[R1]) and integers using ==, !=, &lt;, &lt;=, &gt; and &gt;= and 
+ * combine them with &amp;&amp;, || and !.  A value on its own is true when 
+ * it is not zero
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public final class BreakCondition {
+    
+    // Tokens - integers, identifiers, operators and brackets
+    private static final Pattern TOKEN = 
+            Pattern.compile("\\s*(\\d+|[A-Za-z][A-Za-z0-9]*|==|!=|<=|>=|&&|\\|\\||[<>!()\\[\\].-])");
+    
+    // Expression the condition was compiled from
+    private final String expression;
+    
+    // Compiled expression
+    private final Predicate predicate;
+    
+    // Tokens of the expression (only used while parsing)
+    private List<String> tokens;
+    
+    // Position of the next token (only used while parsing)
+    private int position;
+    
+    /**
+     * Compiles the given conditional breakpoint expression
+     * @param expression Expression to compile
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public BreakCondition(String expression) {
+        this.expression = expression;
+        
+        tokens = tokenize(expression);
+        position = 0;
+        
+        predicate = parseOr();
+        
+        if(position < tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + tokens.get(position) + "' in condition");
+        }
+        
+        tokens = null;
+    }
+    
+    /**
+     * Returns whether the condition holds for the given register store and memory
+     * @param registers Register store of the computer
+     * @param memory Memory of the computer
+     * @return true if execution should break
+     */
+    public boolean test(RegisterStore registers, Memory memory) {
+        return predicate.test(registers, memory);
+    }
+    
+    /**
+     * Returns the expression the condition was compiled from
+     * @return condition expression
+     */
+    @Override public String toString() {
+        return expression;
+    }
+    
+    /**
+     * Splits the given expression into tokens
+     * @param expression Expression to split
+     * @return list of tokens
+     */
+    private static List<String> tokenize(String expression) {
+        List<String> tokens = new ArrayList<String>();
+        Matcher matcher = TOKEN.matcher(expression);
+        
+        int end = 0;
+        while(matcher.find() && matcher.start() == end) {
+            tokens.add(matcher.group(1));
+            end = matcher.end();
+        }
+        
+        if(expression.substring(end).trim().length() > 0) {
+            throw new IllegalArgumentException("Invalid condition '" + expression + "'");
+        }
+        
+        return tokens;
+    }
+    
+    /**
+     * Returns whether the next token matches the given token, consuming it if so
+     * @param token Token to match
+     * @return true if the next token matched
+     */
+    private boolean accept(String token) {
+        if(position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Consumes the next token, which must match the given token
+     * @param token Expected token
+     */
+    private void expect(String token) {
+        if(!accept(token)) {
+            throw new IllegalArgumentException("Expected '" + token + "' in condition");
+        }
+    }
+    
+    /**
+     * Consumes and returns the next token
+     * @return next token
+     */
+    private String next() {
+        if(position >= tokens.size()) {
+            throw new IllegalArgumentException("Unexpected end of condition");
+        }
+        
+        return tokens.get(position++);
+    }
+    
+    // or := and ('||' and)*
+    private Predicate parseOr() {
+        Predicate predicate = parseAnd();
+        
+        while(accept("||")) {
+            final Predicate left = predicate;
+            final Predicate right = parseAnd();
+            
+            predicate = (registers, memory) -> left.test(registers, memory) || right.test(registers, memory);
+        }
+        
+        return predicate;
+    }
+    
+    // and := unary ('&&' unary)*
+    private Predicate parseAnd() {
+        Predicate predicate = parseUnary();
+        
+        while(accept("&&")) {
+            final Predicate left = predicate;
+            final Predicate right = parseUnary();
+            
+            predicate = (registers, memory) -> left.test(registers, memory) && right.test(registers, memory);
+        }
+        
+        return predicate;
+    }
+    
+    // unary := '!' unary | '(' or ')' | comparison
+    private Predicate parseUnary() {
+        if(accept("!")) {
+            final Predicate operand = parseUnary();
+            
+            return (registers, memory) -> !operand.test(registers, memory);
+        }
+        
+        if(accept("(")) {
+            Predicate predicate = parseOr();
+            expect(")");
+            
+            return predicate;
+        }
+        
+        return parseComparison();
+    }
+    
+    // comparison := value (operator value)?
+    private Predicate parseComparison() {
+        final Value left = parseValue();
+        
+        String operator = position < tokens.size() ? tokens.get(position) : "";
+        
+        if(!operator.matches("==|!=|<|<=|>|>=")) {
+            // A value on its own is true when it is not zero
+            return (registers, memory) -> left.get(registers, memory) != 0;
+        }
+        
+        position++;
+        final Value right = parseValue();
+        
+        switch(operator) {
+            case "==" :
+                return (registers, memory) -> left.get(registers, memory) == right.get(registers, memory);
+            case "!=" :
+                return (registers, memory) -> left.get(registers, memory) != right.get(registers, memory);
+            case "<" :
+                return (registers, memory) -> left.get(registers, memory) < right.get(registers, memory);
+            case "<=" :
+                return (registers, memory) -> left.get(registers, memory) <= right.get(registers, memory);
+            case ">" :
+                return (registers, memory) -> left.get(registers, memory) > right.get(registers, memory);
+            default :
+                return (registers, memory) -> left.get(registers, memory) >= right.get(registers, memory);
+        }
+    }
+    
+    // value := ['-'] integer | M '[' value ']' | register ['.' flag bit]
+    private Value parseValue() {
+        String token = next();
+        
+        // Integer constant
+        if(token.equals("-") || token.matches("\\d+")) {
+            final long constant = token.equals("-") ? -Long.parseLong(next()) : Long.parseLong(token);
+            
+            return (registers, memory) -> constant;
+        }
+        
+        // Memory word
+        if(token.equalsIgnoreCase("M")) {
+            expect("[");
+            final Value address = parseValue();
+            expect("]");
+            
+            return (registers, memory) -> {
+                long location = address.get(registers, memory);
+                
+                return location >= 0 && location < memory.size() ? memory.read((int) location) : 0;
+            };
+        }
+        
+        final Register register;
+        try {
+            register = Register.getByMnemonic(token);
+        }catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown register '" + token + "' in condition");
+        }
+        
+        // Flag bit
+        if(register == Register.FLG && accept(".")) {
+            final int mask = getFlagMask(next());
+            
+            return (registers, memory) -> (registers.getWord(Register.FLG) & mask) != 0 ? 1 : 0;
+        }
+        
+        // The Carry register is compared as its signed number of up to ten digits
+        if(register == Register.CAR) {
+            return (registers, memory) -> RegisterStore.getCarryNumber(registers.getLong(Register.CAR));
+        }
+        
+        return (registers, memory) -> registers.getWord(register);
+    }
+    
+    /**
+     * Returns the FLG register bit of the given flag name
+     * @param name Name of the flag bit
+     * @return bit mask of the flag bit
+     */
+    private static int getFlagMask(String name) {
+        switch(name.toLowerCase()) {
+            case "memory" :
+                return Flag.MEMORY;
+            case "overflow" :
+                return Flag.OVERFLOW;
+            case "not" :
+                return Flag.NOT;
+            case "carry" :
+                return Flag.CARRY;
+            case "negative" :
+                return Flag.NEGATIVE;
+            case "zero" :
+                return Flag.ZERO;
+            default :
+                throw new IllegalArgumentException("Unknown flag bit '" + name + "' in condition");
+        }
+    }
+    
+    /**
+     * A compiled boolean expression
+     */
+    private interface Predicate {
+        boolean test(RegisterStore registers, Memory memory);
+    }
+    
+    /**
+     * A compiled integer expression (long so that the Carry register fits)
+     */
+    private interface Value {
+        long get(RegisterStore registers, Memory memory);
+    }
+}
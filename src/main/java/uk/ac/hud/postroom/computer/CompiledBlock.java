@@ -0,0 +1,112 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+/**
+ * A basic block of absolute address instructions compiled into flat primitive
+ * arrays.  A block is a straight line run of ALU instructions which may end 
+ * with a single JMP instruction.  Blocks are executed by the 
+ * BlockCompilingComputer without decoding or register traffic
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+final class CompiledBlock {
+    
+    // Address of the first instruction in the block
+    private final int start;
+    
+    // OpCode of each instruction
+    final OpCode[] opCodes;
+    
+    // First operand (address) of each instruction
+    final int[] x;
+    
+    // Second operand (address) of each instruction
+    final int[] y;
+    
+    // Condition of each JMP instruction (null for all other instructions)
+    final Condition[] conditions;
+    
+    // Whether the block still matches the memory it was compiled from
+    private boolean valid;
+    
+    // Whether any instruction writes to the block or to read-only memory
+    private boolean guarded;
+    
+    /**
+     * Constructs a new CompiledBlock from the given decoded instructions
+     * @param start Address of the first instruction in the block
+     * @param instructions Decoded instructions in the block
+     * @param memory Memory the block was compiled from
+     */
+    CompiledBlock(int start, DecodedInstruction[] instructions, Memory memory) {
+        this.start = start;
+        
+        opCodes = new OpCode[instructions.length];
+        x = new int[instructions.length];
+        y = new int[instructions.length];
+        conditions = new Condition[instructions.length];
+        
+        for(int i = 0; i < instructions.length; i++) {
+            opCodes[i] = instructions[i].getOpCode();
+            x[i] = instructions[i].getOperand1().getField();
+            y[i] = instructions[i].getOperand2().getField();
+            conditions[i] = instructions[i].getCondition();
+            
+            if(opCodes[i] != OpCode.JMP && (contains(x[i]) || memory.isReadOnly(x[i]))) {
+                guarded = true;
+            }
+        }
+        
+        valid = true;
+    }
+    
+    /**
+     * Returns the address of the first instruction in the block
+     * @return start address of the block
+     */
+    int getStart() {
+        return start;
+    }
+    
+    /**
+     * Returns the number of instructions in the block
+     * @return length of the block
+     */
+    int length() {
+        return opCodes.length;
+    }
+    
+    /**
+     * Returns whether the given address holds an instruction of this block
+     * @param address Memory address
+     * @return true if the address is part of the block
+     */
+    boolean contains(int address) {
+        return address >= start && address < start + opCodes.length;
+    }
+    
+    /**
+     * Returns whether the block still matches the memory it was compiled from
+     * @return true if the block can be executed
+     */
+    boolean isValid() {
+        return valid;
+    }
+    
+    /**
+     * Returns whether the block must be checked after each write - blocks 
+     * which only write to writable addresses outside the block can not 
+     * overwrite themselves or raise a memory error
+     * @return true if writes may invalidate the block or stop the computer
+     */
+    boolean isGuarded() {
+        return guarded;
+    }
+    
+    /**
+     * Marks the block as no longer matching the memory it was compiled from
+     */
+    void invalidate() {
+        valid = false;
+    }
+}
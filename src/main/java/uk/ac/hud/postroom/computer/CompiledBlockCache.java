@@ -0,0 +1,150 @@
+package uk.ac.hud.postroom.computer;
+
+/**
+ * Decode cache which also holds the basic blocks compiled from memory.  
+ * Writing to an address covered by a compiled block invalidates the block and 
+ * deoptimizes its start address so that it is interpreted for a cool-down 
+ * before being compiled again.  The cool-down doubles each time the same 
+ * address is deoptimized so that self-modifying code settles on interpretation.
+ * Block state is held in pages which are only allocated when a block is 
+ * first compiled over them
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class CompiledBlockCache extends DecodeCache {
+    
+    /** Maximum number of instructions compiled into a single block **/
+    static final int MAX_BLOCK_LENGTH = 64;
+    
+    // Executions a start address is interpreted for after its first deoptimization
+    private static final int MIN_COOLDOWN = 16;
+    
+    // Longest cool-down after repeated deoptimization
+    private static final int MAX_COOLDOWN = 1 << 16;
+    
+    // Block state - paged by address
+    private PageTable<Page> pages;
+    
+    /**
+     * Constructs a new CompiledBlockCache for a memory of the given size
+     * @param size Size of the memory being cached
+     */
+    public CompiledBlockCache(int size) {
+        super(size);
+        
+        pages = new PageTable<Page>(size, Page::new);
+    }
+    
+    /**
+     * Returns the block compiled from the given start address
+     * @param address Start address of the block
+     * @return compiled block or null if the address has not been compiled
+     */
+    CompiledBlock getBlock(int address) {
+        Page page = pages.get(address);
+        
+        return page != null ? page.blocks[address & PageTable.PAGE_MASK] : null;
+    }
+    
+    /**
+     * Caches the given compiled block
+     * @param block Compiled block
+     */
+    void putBlock(CompiledBlock block) {
+        int start = block.getStart();
+        
+        pages.allocate(start).blocks[start & PageTable.PAGE_MASK] = block;
+        
+        // Blocks may cross into the next page
+        for(int i = start; i < start + block.length(); i++) {
+            pages.allocate(i).coverage[i & PageTable.PAGE_MASK]++;
+        }
+    }
+    
+    /**
+     * Returns whether the given start address must be interpreted because it
+     * was recently deoptimized.  Each call counts one execution against the
+     * cool-down of the address - once it has passed the address may be 
+     * compiled again
+     * @param address Start address
+     * @return true if the address must be interpreted
+     */
+    boolean isDeoptimized(int address) {
+        if(address < 0 || address >= pages.size()) {
+            return true;
+        }
+        
+        // Addresses in pages without blocks have never been deoptimized
+        Page page = pages.get(address);
+        if(page != null && page.cooldown[address & PageTable.PAGE_MASK] > 0) {
+            page.cooldown[address & PageTable.PAGE_MASK]--;
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /** @inheritDoc **/
+    @Override public void invalidate(int address) {
+        super.invalidate(address);
+        
+        Page page = pages.get(address);
+        if(page == null || page.coverage[address & PageTable.PAGE_MASK] == 0) {
+            return;
+        }
+        
+        // Only blocks starting within MAX_BLOCK_LENGTH of the address can contain it
+        for(int i = Math.max(0, address - MAX_BLOCK_LENGTH + 1); i <= address; i++) {
+            CompiledBlock block = getBlock(i);
+            
+            if(block != null && block.contains(address)) {
+                deoptimize(block);
+            }
+        }
+    }
+    
+    /**
+     * Discards the given block and interprets its start address for a 
+     * cool-down which doubles each time the address is deoptimized
+     * @param block Block which has been overwritten
+     */
+    private void deoptimize(CompiledBlock block) {
+        int start = block.getStart();
+        Page page = pages.get(start);
+        int offset = start & PageTable.PAGE_MASK;
+        
+        block.invalidate();
+        page.blocks[offset] = null;
+        
+        for(int j = start; j < start + block.length(); j++) {
+            pages.get(j).coverage[j & PageTable.PAGE_MASK]--;
+        }
+        
+        // Shifts beyond 16 would only be capped by MAX_COOLDOWN
+        page.cooldown[offset] = Math.min(MIN_COOLDOWN << Math.min(page.deoptimizations[offset]++, 16), MAX_COOLDOWN);
+    }
+    
+    /** @inheritDoc **/
+    @Override public void clear() {
+        super.clear();
+        
+        pages.clear();
+    }
+    
+    /**
+     * Block state of PageTable.PAGE_SIZE consecutive addresses
+     */
+    private static final class Page {
+        
+        // Compiled blocks - indexed by start address
+        final CompiledBlock[] blocks = new CompiledBlock[PageTable.PAGE_SIZE];
+        
+        // Number of compiled blocks covering each address
+        final int[] coverage = new int[PageTable.PAGE_SIZE];
+        
+        // Executions each start address must still be interpreted for before it is recompiled
+        final int[] cooldown = new int[PageTable.PAGE_SIZE];
+        
+        // Number of times each start address has been deoptimized
+        final int[] deoptimizations = new int[PageTable.PAGE_SIZE];
+    }
+}
@@ -39,6 +39,32 @@ public interface Computer {
      */
     public RegisterStore getRegisterStore();
     
+    /**
+     * Sets the format of the instruction words executed by the computer
+     * @param instructionFormat instruction word format
+     */
+    public void setInstructionFormat(InstructionFormat instructionFormat);
+    
+    /**
+     * Returns the format of the instruction words executed by the computer
+     * @return instruction word format
+     */
+    public InstructionFormat getInstructionFormat();
+    
+    /**
+     * Sets whether the code segment of the program is read-only.  Writing to
+     * a read-only instruction is a computer error.  When the code is writable
+     * (the default) writes invalidate any instruction decoded from the address
+     * @param readOnly true to protect the code segment
+     */
+    public void setCodeReadOnly(boolean readOnly);
+    
+    /**
+     * Returns whether the code segment of the program is read-only
+     * @return true if the code segment is protected
+     */
+    public boolean isCodeReadOnly();
+    
     /**
      * Sets the instructions to be executed by the computer
      * @param instructions instructions to be executed by the computer
@@ -53,8 +79,64 @@ public interface Computer {
      */
     public void setExecutionSpeed(ExecutionSpeed executionSpeed);
     
+    /**
+     * Sets the execution speed of the Computer to RATE at the given number of
+     * instructions per second
+     * @param instructionsPerSecond Number of instructions to execute every second
+     */
+    public void setInstructionRate(int instructionsPerSecond);
+    
     public void setBreakPoints(int[] breakpoints);
     
+    /**
+     * Sets breakpoints on the instructions assembled from the given source 
+     * lines.  Lines which did not produce an instruction are ignored
+     * @param sourceFile Source file containing the lines
+     * @param lineNos Line numbers (starting at 0) to break on
+     */
+    public void setBreakPointLines(SourceFile sourceFile, int[] lineNos);
+    
+    /**
+     * Adds a conditional breakpoint - execution breaks before any instruction
+     * for which the condition holds (e.g. "PC == 42 &amp;&amp; R3 &gt; 100")
+     * @param expression Condition expression
+     * @return compiled condition
+     * @throws IllegalArgumentException if the expression is not valid
+     */
+    public BreakCondition addBreakCondition(String expression);
+    
+    /**
+     * Removes the given conditional breakpoint
+     * @param condition Condition to remove
+     */
+    public void removeBreakCondition(BreakCondition condition);
+    
+    /**
+     * Returns the instruction loaded at the given memory address - giving the
+     * source file and line number the address was assembled from
+     * @param address Memory address
+     * @return instruction loaded at the address or null if no instruction was loaded
+     */
+    public Instruction getInstructionAt(int address);
+    
+    /**
+     * Sets the maximum number of instructions a single execution may perform
+     * @param instructions Maximum number of instructions (0 = no limit)
+     */
+    public void setInstructionLimit(long instructions);
+    
+    /**
+     * Sets the maximum wall-clock time a single execution may take
+     * @param milliseconds Maximum time in milliseconds (0 = no limit)
+     */
+    public void setTimeLimit(long milliseconds);
+    
+    /**
+     * Sets the maximum number of words a single execution may write to memory
+     * @param writes Maximum number of memory writes (0 = no limit)
+     */
+    public void setMemoryWriteLimit(long writes);
+    
     /**
      * Executes the current instrutions set by setInstructions(Instruction[])
      */
@@ -65,11 +147,75 @@ public interface Computer {
      */
     public void reset();
     
+    /**
+     * Executes the instructions from the given state instead of resetting
+     * the computer
+     * @param state State to execute from
+     * @throws IllegalArgumentException if the state does not fit the computer
+     */
+    public void execute(ComputerState state);
+    
+    /**
+     * Executes the instructions from the current state of the computer 
+     * without resetting it
+     */
+    public void resume();
+    
+    /**
+     * Creates a new computer of the same type holding the same program, 
+     * memory, registers and settings.  Memory is shared copy-on-write, so 
+     * forking does not copy every word.  Listeners are not copied
+     * @return forked computer - stopped in the same state as this computer
+     * @throws IllegalStateException if the computer is running
+     */
+    public Computer fork();
+    
+    /**
+     * Captures the memory and registers of the computer
+     * @return captured state
+     */
+    public ComputerState snapshot();
+    
+    /**
+     * Stops the computer and restores its memory and registers from the 
+     * given state.  If the stopped execution has not finished (e.g. it is 
+     * waiting for input) the state is restored once it has
+     * @param state State to restore
+     * @throws IllegalArgumentException if the state does not fit the computer
+     */
+    public void restore(ComputerState state);
+    
     /**
      * Causes execution of the computer to resume
      */
     public void step();
     
+    /**
+     * Sets whether executed instructions are journaled so that execution can
+     * be reversed
+     * @param enabled true to journal execution
+     */
+    public void setJournalEnabled(boolean enabled);
+    
+    /**
+     * Reverses execution by one instruction
+     * @return true if execution was reversed
+     */
+    public boolean stepBack();
+    
+    /**
+     * Reverses execution until a breakpoint is reached
+     * @return true if a breakpoint was reached
+     */
+    public boolean runBackToBreakPoint();
+    
+    /**
+     * Restores the state after the given number of executed instructions
+     * @param instruction Instruction number to restore
+     * @return true if the state was restored
+     */
+    public boolean seekTo(long instruction);
+    
     /**
      * Causes the execution of the Post Room Computer to stop
      */
@@ -92,4 +238,23 @@ public interface Computer {
      * @param listener listener to remove
      */
     public void removeComputerListener(ComputerListener listener);   
+    
+    /**
+     * Adds a listener which is informed after each instruction is executed.
+     * Compiled execution is not used while instruction listeners are attached
+     * @param listener listener to add 
+     */
+    public void addInstructionListener(InstructionListener listener);
+    
+    /**
+     * Returns all InstructionListeners which have been added to the computer
+     * @return Array of instruction Listeners
+     */
+    public InstructionListener[] getInstructionListeners();
+    
+    /**
+     * Removes the given instruction listener from the computer
+     * @param listener listener to remove
+     */
+    public void removeInstructionListener(InstructionListener listener);
 }
\ No newline at end of file
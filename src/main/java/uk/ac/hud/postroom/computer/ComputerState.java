@@ -0,0 +1,297 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Immutable capture of the memory and registers (including the PC and FLG)
+ * of a Post Room Computer.  Memory is held in pages - pages holding only 
+ * zeros are not stored, so a state costs space in proportion to the memory
+ * used rather than its size.  States can be converted to and from a compact
+ * binary form so that they can be saved to disk
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public final class ComputerState {
+    
+    // Identifies the binary form of a state ("PRCS")
+    private static final int MAGIC = 0x50524353;
+    
+    // Version of the binary form (version 1 held registers as ints, versions 
+    // 1 and 2 held memory up to the last non-zero word rather than pages)
+    private static final int VERSION = 3;
+    
+    // Register values - indexed by Register.ordinal()
+    private final long[] registers;
+    
+    // Number of memory addresses captured
+    private final int size;
+    
+    // Pages of memory words indexed by address >>> PAGE_SHIFT (null if a page holds only zeros)
+    private final int[][] pages;
+    
+    /**
+     * Constructs a new ComputerState from the given arrays (which are not copied)
+     * @param registers Register values indexed by Register.ordinal()
+     * @param size Number of memory addresses
+     * @param pages Pages of PageTable.PAGE_SIZE memory words indexed by 
+     * address >>> PAGE_SHIFT (null for pages holding only zeros)
+     */
+    ComputerState(long[] registers, int size, int[][] pages) {
+        this.registers = registers;
+        this.size = size;
+        this.pages = pages;
+    }
+    
+    /**
+     * Returns the word held by the given register
+     * @param register Register to get the word of
+     * @return word held by the register
+     */
+    public int getWord(Register register) {
+        return (int) registers[register.ordinal()];
+    }
+    
+    /**
+     * Returns the signed number held by the Carry register
+     * @return digits held by the Carry register, negated if they follow a sign
+     */
+    public long getCarry() {
+        return RegisterStore.getCarryNumber(registers[Register.CAR.ordinal()]);
+    }
+    
+    /**
+     * Returns the word held at the given memory address
+     * @param address Memory address
+     * @return word held at the address
+     */
+    public int getWord(int address) {
+        if(address < 0 || address >= size) {
+            throw new ArrayIndexOutOfBoundsException(address);
+        }
+        
+        int[] page = pages[address >>> PageTable.PAGE_SHIFT];
+        
+        return page != null ? page[address & PageTable.PAGE_MASK] : 0;
+    }
+    
+    /**
+     * Returns the number of memory addresses captured
+     * @return size of the captured memory
+     */
+    public int getMemorySize() {
+        return size;
+    }
+    
+    /**
+     * Returns the captured register values (not copied - must not be modified)
+     * @return register values indexed by Register.ordinal()
+     */
+    long[] getRegisters() {
+        return registers;
+    }
+    
+    /**
+     * Returns the captured pages of memory (not copied - must not be modified)
+     * @return pages of memory words indexed by address >>> PAGE_SHIFT (null
+     * for pages holding only zeros)
+     */
+    int[][] getPages() {
+        return pages;
+    }
+    
+    /**
+     * Returns the binary form of this state.  Pages of memory holding only
+     * zeros are not stored
+     * @return binary form of the state
+     */
+    public byte[] toByteArray() {
+        // Only pages holding a non-zero word are stored
+        List<Integer> used = new ArrayList<Integer>();
+        for(int page = 0; page < pages.length; page++) {
+            if(pages[page] != null && !isZero(pages[page])) {
+                used.add(page);
+            }
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                16 + 8 * registers.length + used.size() * 4 * (PageTable.PAGE_SIZE + 1));
+        DataOutputStream output = new DataOutputStream(bytes);
+        
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            
+            output.writeInt(registers.length);
+            for(long value : registers) {
+                output.writeLong(value);
+            }
+            
+            output.writeInt(size);
+            output.writeInt(used.size());
+            for(int page : used) {
+                output.writeInt(page);
+                
+                for(int i = 0; i < getPageLength(size, page); i++) {
+                    output.writeInt(pages[page][i]);
+                }
+            }
+            
+            output.close();
+        }catch (IOException e) {
+            // Can not occur when writing to a byte array
+            throw new IllegalStateException(e);
+        }
+        
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Constructs a ComputerState from its binary form
+     * @param data Binary form of the state
+     * @return decoded state
+     * @throws java.io.IOException if the data is not a valid state
+     */
+    public static ComputerState fromByteArray(byte[] data) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        
+        try {
+            if(input.readInt() != MAGIC) {
+                throw new IOException("Not a Post Room Computer state");
+            }
+            
+            int version = input.readInt();
+            if(version < 1 || version > VERSION) {
+                throw new IOException("Unsupported state version " + version);
+            }
+            
+            int registerCount = input.readInt();
+            if(registerCount != Register.values().length) {
+                throw new IOException("State holds " + registerCount + " registers, expected " +
+                        Register.values().length);
+            }
+            
+            long[] registers = new long[registerCount];
+            for(int i = 0; i < registerCount; i++) {
+                registers[i] = version == 1 ? input.readInt() : input.readLong();
+            }
+            
+            int size = input.readInt();
+            int used = input.readInt();
+            if(size < 0 || used < 0) {
+                throw new IOException("Invalid memory size in state");
+            }
+            
+            int[][] pages = new int[getPageCount(size)][];
+            
+            if(version < 3) {
+                // Words up to the last non-zero word
+                if(used > size) {
+                    throw new IOException("Invalid memory size in state");
+                }
+                
+                for(int address = 0; address < used; address++) {
+                    int word = input.readInt();
+                    
+                    if(word != 0) {
+                        int page = address >>> PageTable.PAGE_SHIFT;
+                        
+                        if(pages[page] == null) {
+                            pages[page] = new int[PageTable.PAGE_SIZE];
+                        }
+                        
+                        pages[page][address & PageTable.PAGE_MASK] = word;
+                    }
+                }
+            }else {
+                // Pages holding a non-zero word
+                for(int i = 0; i < used; i++) {
+                    int page = input.readInt();
+                    if(page < 0 || page >= pages.length) {
+                        throw new IOException("Invalid memory page in state");
+                    }
+                    
+                    pages[page] = new int[PageTable.PAGE_SIZE];
+                    for(int j = 0; j < getPageLength(size, page); j++) {
+                        pages[page][j] = input.readInt();
+                    }
+                }
+            }
+            
+            return new ComputerState(registers, size, pages);
+        }catch (EOFException e) {
+            throw new IOException("Truncated Post Room Computer state");
+        }
+    }
+    
+    /**
+     * Returns the number of pages needed to hold a memory of the given size
+     * @param size Number of memory addresses
+     * @return number of pages
+     */
+    static int getPageCount(int size) {
+        return (int) ((size + (long) PageTable.PAGE_MASK) >>> PageTable.PAGE_SHIFT);
+    }
+    
+    /**
+     * Returns the number of addresses of a memory of the given size held in 
+     * the given page (only the last page may be partly used)
+     * @param size Number of memory addresses
+     * @param page Index of the page
+     * @return number of addresses in the page
+     */
+    static int getPageLength(int size, int page) {
+        return Math.min(PageTable.PAGE_SIZE, size - (page << PageTable.PAGE_SHIFT));
+    }
+    
+    /**
+     * Returns whether the given page holds only zeros
+     * @param page Page of memory words
+     * @return true if every word is zero
+     */
+    private static boolean isZero(int[] page) {
+        for(int word : page) {
+            if(word != 0) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Saves this state to disk in its binary form
+     * @param file File to save to
+     * @throws java.io.IOException throws if an IOException occurs
+     */
+    public void save(File file) throws IOException {
+        FileOutputStream output = new FileOutputStream(file);
+        
+        try {
+            output.write(toByteArray());
+        }finally {
+            output.close();
+        }
+    }
+    
+    /**
+     * Loads a state from disk
+     * @param file File holding the binary form of the state
+     * @return loaded state
+     * @throws java.io.IOException throws if the file can not be read or is
+     * not a valid state
+     */
+    public static ComputerState load(File file) throws IOException {
+        DataInputStream input = new DataInputStream(new FileInputStream(file));
+        
+        try {
+            byte[] data = new byte[(int) file.length()];
+            input.readFully(data);
+            
+            return fromByteArray(data);
+        }finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.hud.postroom.computer;
+
+/**
+ * Cache of decoded instructions indexed by memory address.  Entries are
+ * filled lazily by the InstructionDecoder and invalidated whenever Memory
+ * writes to the address they were decoded from.  Entries are held in pages
+ * which are only allocated when an address in them is first decoded
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class DecodeCache {
+
+    // Decoded instructions - paged by memory address
+    private PageTable<DecodedInstruction[]> cache;
+
+    /**
+     * Constructs a new DecodeCache for a memory of the given size
+     * @param size Size of the memory being cached
+     */
+    public DecodeCache(int size) {
+        cache = new PageTable<DecodedInstruction[]>(size, () -> new DecodedInstruction[PageTable.PAGE_SIZE]);
+    }
+
+    /**
+     * Returns the decoded instruction cached for the given address
+     * @param address Memory address
+     * @return decoded instruction or null if the address has not been decoded
+     */
+    public DecodedInstruction get(int address) {
+        DecodedInstruction[] page = cache.get(address);
+
+        return page != null ? page[address & PageTable.PAGE_MASK] : null;
+    }
+
+    /**
+     * Caches the decoded instruction for the given address
+     * @param address Memory address the instruction was decoded from
+     * @param instruction decoded instruction
+     */
+    public void put(int address, DecodedInstruction instruction) {
+        if(address >= 0 && address < cache.size()) {
+            cache.allocate(address)[address & PageTable.PAGE_MASK] = instruction;
+        }
+    }
+
+    /**
+     * Removes any decoded instruction cached for the given address
+     * @param address Memory address which has changed
+     */
+    public void invalidate(int address) {
+        DecodedInstruction[] page = cache.get(address);
+
+        if(page != null) {
+            page[address & PageTable.PAGE_MASK] = null;
+        }
+    }
+
+    /**
+     * Removes all cached instructions - only the pages which have been
+     * allocated since the last clear are visited
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
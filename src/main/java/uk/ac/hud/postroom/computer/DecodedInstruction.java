@@ -0,0 +1,186 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+/**
+ * An immutable, fully decoded instruction word.  Decoding an instruction
+ * splits the word [OP|AF1|AF2] into its OpCode, Condition (JMP only)
+ * and operands so that the work only needs to be done once per memory cell
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public final class DecodedInstruction {
+
+    // The instruction word which was decoded
+    private final int word;
+
+    // Format of the instruction word
+    private final InstructionFormat format;
+
+    // OpCode of the instruction
+    private final OpCode opCode;
+
+    // Condition of a JMP instruction (null for all other instructions)
+    private final Condition condition;
+
+    // First operand (AF1)
+    private final Operand operand1;
+
+    // Second operand (AF2)
+    private final Operand operand2;
+
+    /**
+     * Decodes the given standard format instruction word
+     * @param word Instruction word to decode
+     * @throws IllegalArgumentException if the word is not a valid instruction
+     */
+    public DecodedInstruction(int word) {
+        this(word, InstructionFormat.STANDARD);
+    }
+
+    /**
+     * Decodes the given instruction word
+     * @param word Instruction word to decode
+     * @param format Format of the instruction word
+     * @throws IllegalArgumentException if the word is not a valid instruction
+     */
+    public DecodedInstruction(int word, InstructionFormat format) {
+        // Instructions are [OP|AF1|AF2]
+        if(!format.isValid(word)) {
+            throw new IllegalArgumentException("Malformed instruction");
+        }
+
+        this.word = word;
+        this.format = format;
+
+        opCode = OpCode.getByValue(format.getOpCode(word));
+        operand1 = new Operand(format.getOperand1(word));
+        operand2 = new Operand(format.getOperand2(word));
+
+        // Only JMP instructions use the first operand as a condition code
+        condition = opCode == OpCode.JMP ? Condition.getByValue(operand1.getField()) : null;
+    }
+
+    /**
+     * Returns the instruction word which was decoded
+     * @return instruction word
+     */
+    public int getWord() {
+        return word;
+    }
+
+    /**
+     * Returns the OpCode of the instruction
+     * @return OpCode of the instruction
+     */
+    public OpCode getOpCode() {
+        return opCode;
+    }
+
+    /**
+     * Returns the Condition of a JMP instruction
+     * @return Condition of the instruction or null if the instruction is not a JMP
+     */
+    public Condition getCondition() {
+        return condition;
+    }
+
+    /**
+     * Returns the first operand (AF1) of the instruction
+     * @return first operand of the instruction
+     */
+    public Operand getOperand1() {
+        return operand1;
+    }
+
+    /**
+     * Returns the second operand (AF2) of the instruction
+     * @return second operand of the instruction
+     */
+    public Operand getOperand2() {
+        return operand2;
+    }
+
+    /**
+     * Returns the instruction in its machine code format
+     * @return machine code format of the instruction
+     */
+    @Override public String toString() {
+        return format.format(word);
+    }
+
+    /**
+     * A decoded operand.  Absolute address machines use the field as
+     * a memory address.  Register address machines use the field as
+     * [Register|AddressMode] or [Value|AddressMode] for immediate address modes
+     */
+    public static final class Operand {
+
+        // The raw operand field
+        private final int field;
+
+        // AddressMode used by register address machines
+        private final AddressMode addressMode;
+
+        // Register used by register address machines (null if no register matches)
+        private final Register register;
+
+        // Operand compiled for its AddressMode, used by register address machines
+        private final OperandAccessor accessor;
+
+        /**
+         * Decodes the given operand field
+         * @param field Operand field to decode
+         */
+        private Operand(int field) {
+            this.field = field;
+
+            addressMode = InstructionFormat.getAddressMode(field);
+
+            // Fields which are not registers are immediate values or absolute addresses
+            int registerID = InstructionFormat.getOperandValue(field);
+            register = Register.isRegisterID(registerID) ? Register.getByRegisterID(registerID) : null;
+
+            accessor = OperandAccessor.compile(this);
+        }
+
+        /**
+         * Returns the raw operand field
+         * @return operand field
+         */
+        public int getField() {
+            return field;
+        }
+
+        /**
+         * Returns the AddressMode part of the operand
+         * @return AddressMode of the operand
+         */
+        public AddressMode getAddressMode() {
+            return addressMode;
+        }
+
+        /**
+         * Returns the Register part of the operand
+         * @return Register of the operand or null if no register matches
+         */
+        public Register getRegister() {
+            return register;
+        }
+
+        /**
+         * Returns the value part of an immediate operand
+         * @return value part of the operand
+         */
+        public int getValue() {
+            return InstructionFormat.getOperandValue(field);
+        }
+
+        /**
+         * Returns the operand compiled for its AddressMode
+         * @return accessor of the operand
+         */
+        OperandAccessor getAccessor() {
+            return accessor;
+        }
+    }
+}
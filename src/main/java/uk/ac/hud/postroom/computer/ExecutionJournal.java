@@ -0,0 +1,414 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+
+/**
+ * Journal of the state changes made by each executed instruction, allowing 
+ * execution to be reversed.  Every register and memory write appends an undo 
+ * record (the register or address and its old value) to a bounded ring, and 
+ * a checkpoint is taken every checkpointInterval instructions.  Checkpoints 
+ * hold all the registers but only the memory pages written after them - 
+ * each page is copied as it was at the checkpoint when it is first written.
+ * Seeking to any instruction in the journal restores the nearest later 
+ * checkpoint and undoes at most checkpointInterval instructions
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ExecutionJournal {
+    
+    // Flag marking an undo record as a memory (rather than register) record - above all 31 address bits
+    private static final long MEMORY_RECORD = 1L << 63;
+    
+    // Bits of a register record holding the old value (wide enough for the Carry register)
+    private static final int REGISTER_VALUE_BITS = 48;
+    
+    // Number of addresses in a memory page = 2 ^ PAGE_SHIFT
+    private static final int PAGE_SHIFT = PageTable.PAGE_SHIFT;
+    
+    // Registers indexed by ordinal
+    private static final Register[] REGISTERS = Register.values();
+    
+    // Register store being journaled
+    private RegisterStore registerStore;
+    
+    // Memory being journaled
+    private Memory memory;
+    
+    // Number of instructions between checkpoints
+    private int checkpointInterval;
+    
+    // Undo records - [memory flag|address|old word] or [register ordinal|old value]
+    private long[] records;
+    
+    // Total number of undo records written (records wrap around the ring)
+    private long recordCount;
+    
+    // Index of the first undo record of each instruction - indexed by instruction number
+    private long[] instructionStarts;
+    
+    // Checkpoints - indexed by (instruction number / checkpointInterval)
+    private long[] checkpointPositions;
+    private long[][] registerCheckpoints;
+    
+    // Pages written after each checkpoint, as they were at the checkpoint (null until a page is written)
+    private PageImages[] memoryCheckpoints;
+    
+    // Number of instructions executed in the restored state
+    private long position;
+    
+    // Number of instructions executed before execution was reversed
+    private long tip;
+    
+    // State at the tip - saved when the journal first seeks away from the tip.
+    // Memory pages are saved as seeking first changes them
+    private long[] tipRegisters;
+    private PageImages tipMemory;
+    
+    // Whether the journal is restoring state (writes are not recorded)
+    private boolean restoring;
+    
+    /**
+     * Constructs a new ExecutionJournal
+     * @param registerStore Register store to journal
+     * @param memory Memory to journal
+     * @param checkpointInterval Number of instructions between checkpoints
+     * @param checkpoints Number of checkpoints kept
+     * @param recordCapacity Number of undo records kept (rounded up to a power of 2)
+     */
+    public ExecutionJournal(RegisterStore registerStore, Memory memory, 
+            int checkpointInterval, int checkpoints, int recordCapacity) {
+        this.registerStore = registerStore;
+        this.memory = memory;
+        this.checkpointInterval = checkpointInterval;
+        
+        records = new long[Integer.highestOneBit(Math.max(1, recordCapacity - 1)) << 1];
+        instructionStarts = new long[checkpointInterval * checkpoints];
+        
+        checkpointPositions = new long[checkpoints];
+        registerCheckpoints = new long[checkpoints][REGISTERS.length];
+        memoryCheckpoints = new PageImages[checkpoints];
+        
+        reset();
+    }
+    
+    /**
+     * Constructs a new ExecutionJournal with a checkpoint every 1024 
+     * instructions, keeping 64 checkpoints and 2^20 undo records
+     * @param registerStore Register store to journal
+     * @param memory Memory to journal
+     */
+    public ExecutionJournal(RegisterStore registerStore, Memory memory) {
+        this(registerStore, memory, 1024, 64, 1 << 20);
+    }
+    
+    /**
+     * Empties the journal - the current state becomes instruction 0
+     */
+    public void reset() {
+        recordCount = 0;
+        position = 0;
+        tip = 0;
+        tipRegisters = null;
+        tipMemory = null;
+        
+        Arrays.fill(checkpointPositions, -1);
+        Arrays.fill(memoryCheckpoints, null);
+    }
+    
+    /**
+     * Returns the number of instructions executed in the current state
+     * @return current instruction number
+     */
+    public long getPosition() {
+        return position;
+    }
+    
+    /**
+     * Returns the number of instructions executed before execution was reversed
+     * @return latest instruction number
+     */
+    public long getLatestPosition() {
+        return tip;
+    }
+    
+    /**
+     * Returns the earliest instruction number which can be restored
+     * @return earliest instruction number in the journal
+     */
+    public long getEarliestPosition() {
+        long earliest = Math.max(0, tip - instructionStarts.length);
+        
+        // Binary search for the first instruction whose records have not been overwritten
+        long low = earliest;
+        long high = tip;
+        while(low < high) {
+            long middle = (low + high) >>> 1;
+            
+            if(hasRecords(middle)) {
+                high = middle;
+            }else {
+                low = middle + 1;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Marks the start of the next instruction.  Executing an instruction after
+     * seeking back discards the journal after the current instruction
+     */
+    protected void beginInstruction() {
+        if(position < tip) {
+            discardFuture();
+        }
+        
+        if(position % checkpointInterval == 0) {
+            checkpoint();
+        }
+        
+        instructionStarts[(int) (position % instructionStarts.length)] = recordCount;
+        
+        position++;
+        tip = position;
+    }
+    
+    /**
+     * Records the old value of a register which is about to be written
+     * @param register Register being written
+     * @param oldValue Value of the register before the write
+     */
+    protected void recordRegister(Register register, long oldValue) {
+        if(!restoring) {
+            records[(int) (recordCount++ & (records.length - 1))] = 
+                    ((long) register.ordinal() << REGISTER_VALUE_BITS) | 
+                    (oldValue & ((1L << REGISTER_VALUE_BITS) - 1));
+        }
+    }
+    
+    /**
+     * Records the old value of a memory address which is about to be written
+     * @param address Address being written
+     * @param oldValue Value of the address before the write
+     */
+    protected void recordMemory(int address, int oldValue) {
+        if(!restoring) {
+            records[(int) (recordCount++ & (records.length - 1))] = 
+                    MEMORY_RECORD | ((long) address << 32) | (oldValue & 0xFFFFFFFFL);
+            
+            // Copy the page as it was at the checkpoint of the current instruction
+            int slot = getSlot(position - 1);
+            if(memoryCheckpoints[slot] == null) {
+                memoryCheckpoints[slot] = new PageImages();
+            }
+            
+            memoryCheckpoints[slot].save(address);
+        }
+    }
+    
+    /**
+     * Restores the registers and memory to the state after the given number
+     * of instructions
+     * @param target Instruction number to restore
+     * @return true if the state was restored, false if the instruction is 
+     * not in the journal
+     */
+    public boolean seek(long target) {
+        if(target < 0 || target > tip || !hasRecords(target)) {
+            return false;
+        }
+        
+        if(target == position) {
+            return true;
+        }
+        
+        // Nearest checkpoint at or after the target (the tip is always a checkpoint)
+        long checkpoint = Math.min(tip, 
+                (target + checkpointInterval - 1) / checkpointInterval * checkpointInterval);
+        int slot = getSlot(checkpoint);
+        
+        if(checkpoint < tip && checkpointPositions[slot] != checkpoint) {
+            return false;
+        }
+        
+        // Save the latest registers before reversing from them (memory pages are saved as they change)
+        if(position == tip) {
+            tipRegisters = new long[REGISTERS.length];
+            tipMemory = new PageImages();
+            registerStore.snapshot(tipRegisters);
+        }
+        
+        restoring = true;
+        
+        try {
+            // Undo directly if the target is close enough, otherwise start from the checkpoint
+            if(target > position || position - target > checkpoint - target) {
+                // Pages only hold earlier states, so checkpoints after the current state are reached from the tip
+                if(checkpoint > position) {
+                    restoreTip();
+                }
+                
+                if(checkpoint < tip) {
+                    registerStore.restore(registerCheckpoints[slot]);
+                    
+                    // Pages are restored newest first, leaving each as it was at the checkpoint
+                    for(long instruction = position - 1; instruction >= checkpoint; 
+                            instruction -= checkpointInterval) {
+                        PageImages pages = memoryCheckpoints[getSlot(instruction)];
+                        
+                        if(pages != null) {
+                            pages.restore(tipMemory);
+                        }
+                    }
+                    
+                    position = checkpoint;
+                }
+            }
+            
+            while(position > target) {
+                undoInstruction();
+            }
+        }finally {
+            restoring = false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Undoes the most recent instruction in the current state
+     */
+    private void undoInstruction() {
+        long start = instructionStarts[(int) ((position - 1) % instructionStarts.length)];
+        long end = position == tip ? recordCount : 
+                instructionStarts[(int) (position % instructionStarts.length)];
+        
+        for(long i = end - 1; i >= start; i--) {
+            long record = records[(int) (i & (records.length - 1))];
+            
+            if((record & MEMORY_RECORD) != 0) {
+                int address = (int) ((record & ~MEMORY_RECORD) >>> 32);
+                
+                tipMemory.save(address);
+                memory.restore(address, (int) record);
+            }else {
+                // Register values are sign extended from REGISTER_VALUE_BITS
+                registerStore.writeLong(REGISTERS[(int) (record >>> REGISTER_VALUE_BITS)], 
+                        record << (64 - REGISTER_VALUE_BITS) >> (64 - REGISTER_VALUE_BITS));
+            }
+        }
+        
+        position--;
+    }
+    
+    /**
+     * Returns whether the undo records from the given instruction to the tip
+     * are still held in the journal
+     * @param instruction Instruction number
+     * @return true if the instruction can be restored
+     */
+    private boolean hasRecords(long instruction) {
+        if(instruction == tip) {
+            return true;
+        }
+        
+        return tip - instruction <= instructionStarts.length &&
+                instructionStarts[(int) (instruction % instructionStarts.length)] >= recordCount - records.length;
+    }
+    
+    /**
+     * Restores the registers and memory saved when the journal first seeked
+     * away from the tip
+     */
+    private void restoreTip() {
+        registerStore.restore(tipRegisters);
+        tipMemory.restore(null);
+        
+        // Memory now matches the tip again
+        tipMemory = new PageImages();
+        position = tip;
+    }
+    
+    /**
+     * Takes a checkpoint of the current state - memory pages are copied as 
+     * they are first written after the checkpoint
+     */
+    private void checkpoint() {
+        int slot = getSlot(position);
+        
+        checkpointPositions[slot] = position;
+        registerStore.snapshot(registerCheckpoints[slot]);
+        memoryCheckpoints[slot] = null;
+    }
+    
+    /**
+     * Returns the checkpoint slot of the given instruction
+     * @param instruction Instruction number
+     * @return index of the checkpoint the instruction follows
+     */
+    private int getSlot(long instruction) {
+        return (int) (instruction / checkpointInterval % checkpointPositions.length);
+    }
+    
+    /**
+     * Discards the journal after the current instruction so that execution 
+     * can continue from it
+     */
+    private void discardFuture() {
+        recordCount = instructionStarts[(int) (position % instructionStarts.length)];
+        tip = position;
+        tipRegisters = null;
+        tipMemory = null;
+        
+        for(int i = 0; i < checkpointPositions.length; i++) {
+            if(checkpointPositions[i] > position) {
+                checkpointPositions[i] = -1;
+                memoryCheckpoints[i] = null;
+            }
+        }
+    }
+    
+    /**
+     * Copies of memory pages, each taken before the page was first changed
+     */
+    private final class PageImages {
+        
+        // Copied words - indexed by page number
+        private final Map<Integer, int[]> pages = new HashMap<Integer, int[]>();
+        
+        /**
+         * Copies the page holding the given address unless it has already 
+         * been copied
+         * @param address Address about to be changed
+         */
+        void save(int address) {
+            Integer page = address >>> PAGE_SHIFT;
+            
+            if(!pages.containsKey(page)) {
+                int start = page << PAGE_SHIFT;
+                int[] words = new int[Math.min(PageTable.PAGE_SIZE, memory.size() - start)];
+                
+                memory.snapshot(start, words);
+                pages.put(page, words);
+            }
+        }
+        
+        /**
+         * Copies all the saved pages back into memory
+         * @param backup Pages to save each page into before it is overwritten
+         * (null if they are not needed)
+         */
+        void restore(PageImages backup) {
+            for(Map.Entry<Integer, int[]> entry : pages.entrySet()) {
+                int start = entry.getKey() << PAGE_SHIFT;
+                
+                if(backup != null) {
+                    backup.save(start);
+                }
+                
+                memory.load(start, entry.getValue());
+            }
+        }
+    }
+}
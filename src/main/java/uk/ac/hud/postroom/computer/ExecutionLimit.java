@@ -0,0 +1,37 @@
+package uk.ac.hud.postroom.computer;
+
+/**
+ * Enumeration of the limits which can be placed on a single execution of a
+ * Post Room Computer program
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public enum ExecutionLimit {
+    
+    /** Maximum number of instructions executed **/
+    INSTRUCTIONS ("Instruction limit exceeded"),
+    
+    /** Maximum wall-clock time (in milliseconds) **/
+    TIME ("Time limit exceeded"),
+    
+    /** Maximum number of words written to memory **/
+    MEMORY_WRITES ("Memory write limit exceeded");
+    
+    // Description of the limit being exceeded
+    private String message;
+    
+    /**
+     * Constructs a new ExecutionLimit enum with the given message
+     * @param message Description of the limit being exceeded
+     */
+    private ExecutionLimit(String message) {
+        this.message = message;
+    }
+    
+    /**
+     * Returns a description of the limit being exceeded
+     * @return description of the limit being exceeded
+     */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -19,6 +19,9 @@ public enum ExecutionSpeed {
     /** Computer executes one instruction every second **/
     FAST (250),
     
+    /** Computer executes a set number of instructions every second **/
+    RATE (-1),
+    
     /** Computer executes one instruction as fast as the host CPU can **/
     FULL (-1);
     
@@ -1,34 +1,46 @@
 package uk.ac.hud.postroom.computer;
 
+import uk.ac.hud.postroom.*;
+
 /**
- * Flag Register
+ * Flag Register.  The flag bits are held in the same 6 bit mask as the FLG
+ * register (memory, overflow, not, carry, negative, zero)
  * @author Richard Walton (c041052@hud.ac.uk)
  */
 public class Flag {
     
-    // Memory flag bit
-    private boolean memory;
+    /** Memory flag bit **/
+    public static final int MEMORY = 32;
+    
+    /** Overflow flag bit **/
+    public static final int OVERFLOW = 16;
+    
+    /** Not flag bit **/
+    public static final int NOT = 8;
     
-    // Overflow flag bit
-    private boolean overflow;
+    /** Carry flag bit **/
+    public static final int CARRY = 4;
     
-    // Not flag bit
-    private boolean not;
+    /** Negative flag bit **/
+    public static final int NEGATIVE = 2;
     
-    // Carry flag bit
-    private boolean carry;
+    /** Zero flag bit **/
+    public static final int ZERO = 1;
     
-    // Negative flag bit
-    private boolean negative;
+    /** All flag bits **/
+    public static final int ALL = 63;
     
-    // Zero flag bit
-    private boolean zero;
+    // Whether each Condition matches each flag mask - indexed by Condition.ordinal() then mask
+    private static final boolean[][] CONDITION_TABLE = buildConditionTable();
+    
+    // Flag bits
+    private int bits;
     
     /**
      * Constructs a new Flag with all the bits set to 0 (false)
      */
     public Flag() {
-        this("000000");
+        this(0);
     }
     
     /**
@@ -41,24 +53,130 @@ public class Flag {
         }
         
         // Set flag bits
-        memory = flag.charAt(0) == '1';
-        overflow = flag.charAt(1) == '1';
-        not = flag.charAt(2) == '1';
-        carry = flag.charAt(3) == '1';
-        negative = flag.charAt(4) == '1';
-        zero = flag.charAt(5) == '1'; 
+        for(int i = 0; i < 6; i++) {
+            bits = bits << 1 | (flag.charAt(i) == '1' ? 1 : 0);
+        }
+    }
+    
+    /**
+     * Constructs a new Flag from the given bit mask
+     * @param bits 6 bit mask of the flag
+     */
+    public Flag(int bits) {
+        this.bits = bits & ALL;
+    }
+    
+    /**
+     * Returns whether the given Condition matches the given flag mask.  The
+     * not bit inverts the result of every condition
+     * @param condition Condition to test
+     * @param bits 6 bit mask of the flag
+     * @return true if a jump with the condition should be taken
+     */
+    public static boolean matches(Condition condition, int bits) {
+        return CONDITION_TABLE[condition.ordinal()][bits & ALL];
+    }
+    
+    /**
+     * Builds the truth table of every Condition for every flag mask
+     * @return truth tables indexed by Condition.ordinal() then mask
+     */
+    private static boolean[][] buildConditionTable() {
+        boolean[][] table = new boolean[Condition.values().length][ALL + 1];
+        
+        for(Condition condition : Condition.values()) {
+            for(int bits = 0; bits <= ALL; bits++) {
+                table[condition.ordinal()][bits] = evaluate(condition, new Flag(bits));
+            }
+        }
+        
+        return table;
+    }
+    
+    /**
+     * Evaluates the given Condition against the given flag
+     * @param condition Condition to evaluate
+     * @param flag Flag to test
+     * @return true if a jump with the condition should be taken
+     */
+    private static boolean evaluate(Condition condition, Flag flag) {
+        boolean doJMP = false;
+        
+        switch(condition) {
+            case NVR : // never, always return false
+                doJMP = false;
+                break;
+            
+            case LWY : // always, always return true
+                doJMP = true;
+                break;
+            
+            case LTZ : // less than zero
+                doJMP = flag.isNegative();
+                break;
+            
+            case LEZ : // less than or equal to zero
+                doJMP = flag.isNegative() || flag.isZero();
+                break;
+            
+            case EQZ : // equal to zero
+                doJMP = flag.isZero();
+                break;
+            
+            case NEZ : // not equal to zero
+                doJMP = !flag.isZero();
+                break;
+            
+            case GEZ : // greater or equal to zero
+                doJMP = !flag.isNegative() || flag.isZero();
+                break;
+            
+            case GTZ : // greater than zero
+                doJMP = !flag.isNegative() && !flag.isZero();
+                break;
+            
+            case CRY : // carry
+                doJMP = flag.isCarry();
+                break;
+            
+            case NCRY : // not carry
+                doJMP = !flag.isCarry();
+                break;
+            
+            case VFL : // overflow
+                doJMP = flag.isOverflow();
+                break;
+            
+            case NVFL : // not overflow
+                doJMP = !flag.isOverflow();
+                break;
+            
+            case MEM : // memory
+                doJMP = flag.isMemory();
+                break;
+            
+            case NMEM : // not memory
+                doJMP = !flag.isMemory();
+                break;
+        }
+        
+        // If the 'not' bit is set on the flag, invert the result
+        return flag.isNot() ? !doJMP : doJMP;
     }
     
     /**
      * Sets all the flag bits to false (0)
      */
     public void reset() {
-        setMemory(false);
-        setOverflow(false);
-        setNot(false);
-        setCarry(false);
-        setNegative(false);
-        setZero(false);
+        bits = 0;
+    }
+    
+    /**
+     * Returns the 6 bit mask of the flag
+     * @return bit mask of the flag
+     */
+    public int getBits() {
+        return bits;
     }
     
     /**
@@ -66,17 +184,7 @@ public class Flag {
      * @return 6 binary digit representation of the flag
      */
     public String getMask() {
-        StringBuilder mask = new StringBuilder();
-        
-        // Build Flag mask
-        mask.append(isMemory() ? "1" : "0");
-        mask.append(isOverflow() ? "1" : "0");
-        mask.append(isNot() ? "1" : "0");
-        mask.append(isCarry() ? "1" : "0");
-        mask.append(isNegative() ? "1" : "0");
-        mask.append(isZero() ? "1" : "0");
-        
-        return mask.toString();    
+        return Integer.toBinaryString(bits | 64).substring(1);
     }
     
     /**
@@ -84,7 +192,7 @@ public class Flag {
      * @return true if memory bit is true
      */
     public boolean isMemory() {
-        return memory;
+        return (bits & MEMORY) != 0;
     }
     
     /**
@@ -92,7 +200,7 @@ public class Flag {
      * @return true if overflow bit is true
      */
     public boolean isOverflow() {
-        return overflow;
+        return (bits & OVERFLOW) != 0;
     }
     
     /**
@@ -100,7 +208,7 @@ public class Flag {
      * @return true if not bit is true
      */
     public boolean isNot() {
-        return not;
+        return (bits & NOT) != 0;
     }
     
     /**
@@ -108,7 +216,7 @@ public class Flag {
      * @return true if carry bit is true
      */
     public boolean isCarry() {
-        return carry;
+        return (bits & CARRY) != 0;
     }
     
     /**
@@ -116,7 +224,7 @@ public class Flag {
      * @return true if negative bit is true
      */
     public boolean isNegative() {
-        return negative;
+        return (bits & NEGATIVE) != 0;
     }
     
     /**
@@ -124,7 +232,7 @@ public class Flag {
      * @return true if zero bit is true
      */
     public boolean isZero() {
-        return zero;
+        return (bits & ZERO) != 0;
     }
     
     /**
@@ -132,7 +240,7 @@ public class Flag {
      * @param memory new bit value
      */
     public void setMemory(boolean memory) {
-        this.memory = memory;
+        setBit(MEMORY, memory);
     }
     
     /**
@@ -140,7 +248,7 @@ public class Flag {
      * @param overflow new bit value
      */
     public void setOverflow(boolean overflow) {
-        this.overflow = overflow;
+        setBit(OVERFLOW, overflow);
     }
     
     /**
@@ -148,7 +256,7 @@ public class Flag {
      * @param not new bit value
      */
     public void setNot(boolean not) {
-        this.not = not;
+        setBit(NOT, not);
     }
     
     /**
@@ -156,7 +264,7 @@ public class Flag {
      * @param carry new bit value
      */
     public void setCarry(boolean carry) {
-        this.carry = carry;
+        setBit(CARRY, carry);
     }
     
     /**
@@ -164,7 +272,7 @@ public class Flag {
      * @param negative new bit value
      */
     public void setNegative(boolean negative) {
-        this.negative = negative;
+        setBit(NEGATIVE, negative);
     }
     
     /**
@@ -172,6 +280,15 @@ public class Flag {
      * @param zero new bit value
      */
     public void setZero(boolean zero) {
-        this.zero = zero;
+        setBit(ZERO, zero);
+    }
+    
+    /**
+     * Sets or clears the given bit
+     * @param bit Flag bit
+     * @param value new bit value
+     */
+    private void setBit(int bit, boolean value) {
+        bits = value ? bits | bit : bits & ~bit;
     }
-}
\ No newline at end of file
+}
@@ -7,7 +7,9 @@ package uk.ac.hud.postroom.computer;
 public interface IODevice {
     
     /**
-     * Called when the Post Room Computer needs input
+     * Called when the Post Room Computer needs input.  The calling thread is
+     * interrupted if the computer is stopped - devices which can should then
+     * stop waiting and return any input
      * @return External input
      */
     public String requestInput();
@@ -40,18 +40,20 @@ public class IOModule extends ComputerComponent {
     /**
      * Invokes the IOModule to read from the computer register store and 
      * performs an IO operation using the current IODevice
+     * @throws NumberFormatException if the IODevice returns non integer input
      */
     protected void invoke() {
         // Get the type of IO to perform
-        int ioType = Integer.parseInt(registerStore.readFrom(Register.IOT));
+        int ioType = registerStore.read(Register.IOT);
         
         switch(ioType) {
             case 0 : //read
-                registerStore.writeTo(Register.IOB, ioDevice.requestInput());
+                // Registers hold integer words - non integer input is rejected
+                registerStore.write(Register.IOB, Integer.parseInt(ioDevice.requestInput()));
                 break;
                 
             case 1 : //write
-                ioDevice.showOutput(registerStore.readFrom(Register.IOB));
+                ioDevice.showOutput(Integer.toString(registerStore.read(Register.IOB)));
                 break;
         }
     }
@@ -17,6 +17,9 @@ public class InstructionDecoder extends ComputerComponent {
     // Listener list
     private List<InstructionDecoderListener> listeners;
     
+    // Cached copy of the listener list (rebuilt when listeners are added / removed)
+    private InstructionDecoderListener[] listenerArray;
+    
     /**
      * Constructs a new Instruction Decoder for the given computer
      * @param computer The computer which this instruction decoder is part of
@@ -27,6 +30,7 @@ public class InstructionDecoder extends ComputerComponent {
         
         registerStore = computer.getRegisterStore();
         listeners = new ArrayList<InstructionDecoderListener>();
+        listenerArray = new InstructionDecoderListener[]{};
     }
     
     /**
@@ -34,26 +38,56 @@ public class InstructionDecoder extends ComputerComponent {
      * and decoder the instruction stored in the IR register
      */
     protected void invoke() {
+        invoke(-1);
+    }
+    
+    /**
+     * Invokes the instruction decoder unit to decode the instruction stored in 
+     * the IR register, which was fetched from the given address.  Instructions
+     * are only decoded once per address until the memory at that address changes
+     * @param address Memory address the instruction was fetched from
+     * @return decoded instruction or null if the instruction is malformed
+     */
+    protected DecodedInstruction invoke(int address) {
         // Read the instruction
-        String instruction = registerStore.readFrom(Register.IR);
+        int word = registerStore.read(Register.IR);
+        
+        DecodeCache decodeCache = getComputer().getMemory().getDecodeCache();
+        DecodedInstruction instruction = decodeCache.get(address);
         
-        try {        
-            // Split instruction and store into relevent registers
-            registerStore.writeTo(Register.OP, instruction.substring(0, 1));
-            registerStore.writeTo(Register.AF1, instruction.substring(1, 4));
-            registerStore.writeTo(Register.AF2, instruction.substring(4, 7));
-            registerStore.writeTo(Register.AF3, instruction.substring(1, 4));
+        if(instruction == null) {
+            try {
+                instruction = new DecodedInstruction(word, getComputer().getInstructionFormat());
+            }catch (IllegalArgumentException e) {
+                // Inform listeners of error during decoding
+                for(InstructionDecoderListener listener : listenerArray) {
+                    listener.decodeError(this, Integer.toString(word), 
+                            new Exception("Malformed instruction"));
+                }
                 
-            // Inform listeners
-            for(InstructionDecoderListener listener : getDecoderListeners()) {
-                listener.instructionDecoded(this, instruction);
+                return null;
             }
-        }catch (Exception e) {
-            // Inform listeners of error during decoding
-            for(InstructionDecoderListener listener : getDecoderListeners()) {
-                listener.decodeError(this, instruction, new Exception("Malformed instruction"));
+            
+            decodeCache.put(address, instruction);
+        }
+        
+        // Split instruction and store into relevent registers
+        registerStore.write(Register.OP, getComputer().getInstructionFormat().getOpCode(word));
+        registerStore.write(Register.AF1, instruction.getOperand1().getField());
+        registerStore.write(Register.AF2, instruction.getOperand2().getField());
+        registerStore.write(Register.AF3, instruction.getOperand1().getField());
+        
+        // Inform listeners
+        InstructionDecoderListener[] listeners = listenerArray;
+        if(listeners.length > 0) {
+            String text = instruction.toString();
+            
+            for(InstructionDecoderListener listener : listeners) {
+                listener.instructionDecoded(this, text);
             }
         }
+        
+        return instruction;
     }
     
     /**
@@ -61,7 +95,10 @@ public class InstructionDecoder extends ComputerComponent {
      * @param listener listener to add
      */
     public void addDecoderListener(InstructionDecoderListener listener) {
-        if(listener != null) listeners.add(listener);
+        if(listener != null) {
+            listeners.add(listener);
+            listenerArray = listeners.toArray(new InstructionDecoderListener[]{});
+        }
     }
     
     /**
@@ -69,7 +106,7 @@ public class InstructionDecoder extends ComputerComponent {
      * @return Array of Instruction Decoder Listeners
      */
     public InstructionDecoderListener[] getDecoderListeners() {
-        return listeners.toArray(new InstructionDecoderListener[]{});
+        return listenerArray.clone();
     }
     
     /**
@@ -78,5 +115,6 @@ public class InstructionDecoder extends ComputerComponent {
      */
     public void removeDecoderListener(InstructionDecoderListener listener) {
         listeners.remove(listener);
+        listenerArray = listeners.toArray(new InstructionDecoderListener[]{});
     }
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+
+/**
+ * Summary of a single executed instruction - its address, word, operand
+ * values, result, flag changes and memory writes.  A computer delivers one
+ * InstructionRetired to its InstructionListeners after each instruction it
+ * interprets - instructions stopped by an error or limit are not reported.
+ * The same object is reused for every instruction so listeners
+ * must copy any values they keep once instructionRetired returns
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public final class InstructionRetired {
+    
+    // Number of instructions executed before this one in the current execution
+    private long number;
+    
+    // Number of instructions recorded in the current execution
+    private long count;
+    
+    // Memory address the instruction was fetched from
+    private int address;
+    
+    // Decoded instruction
+    private DecodedInstruction instruction;
+    
+    // Values of the operands (XV / YV, or the word output by OUT)
+    private int xValue;
+    private int yValue;
+    
+    // Result of the instruction (ZV, or the word input by INP)
+    private int result;
+    
+    // Flag register before and after the instruction
+    private int flagsBefore;
+    private int flagsAfter;
+    
+    // Address of the next instruction
+    private int nextAddress;
+    
+    // Addresses and values of the memory writes made by the instruction
+    private int[] writeAddresses;
+    private int[] writeValues;
+    
+    // Number of memory writes made by the instruction
+    private int writeCount;
+    
+    /**
+     * Constructs a new InstructionRetired
+     */
+    InstructionRetired() {
+        writeAddresses = new int[4];
+        writeValues = new int[4];
+    }
+    
+    /**
+     * Restarts the instruction count for a new execution
+     */
+    void reset() {
+        count = 0;
+    }
+    
+    /**
+     * Starts recording the given instruction
+     * @param address Memory address the instruction was fetched from
+     * @param instruction Decoded instruction
+     * @param flags Flag register before the instruction
+     */
+    void begin(int address, DecodedInstruction instruction, int flags) {
+        this.number = count++;
+        this.address = address;
+        this.instruction = instruction;
+        
+        flagsBefore = flags;
+        xValue = 0;
+        yValue = 0;
+        result = 0;
+        writeCount = 0;
+    }
+    
+    /**
+     * Records a memory write made by the instruction
+     * @param address Address which was wrote to
+     * @param value Word which was wrote
+     */
+    void recordWrite(int address, int value) {
+        if(writeCount == writeAddresses.length) {
+            writeAddresses = Arrays.copyOf(writeAddresses, writeCount * 2);
+            writeValues = Arrays.copyOf(writeValues, writeCount * 2);
+        }
+        
+        writeAddresses[writeCount] = address;
+        writeValues[writeCount] = value;
+        writeCount++;
+    }
+    
+    /**
+     * Finishes recording the instruction
+     * @param xValue Value of the first operand
+     * @param yValue Value of the second operand
+     * @param result Result of the instruction
+     * @param flags Flag register after the instruction
+     * @param nextAddress Address of the next instruction
+     */
+    void end(int xValue, int yValue, int result, int flags, int nextAddress) {
+        this.xValue = xValue;
+        this.yValue = yValue;
+        this.result = result;
+        this.nextAddress = nextAddress;
+        
+        flagsAfter = flags;
+    }
+    
+    /**
+     * Returns the number of instructions executed before this one in the
+     * current execution
+     * @return instruction number (starting at 0)
+     */
+    public long getNumber() {
+        return number;
+    }
+    
+    /**
+     * Returns the memory address the instruction was fetched from
+     * @return value of the Program Counter when the instruction was fetched
+     */
+    public int getAddress() {
+        return address;
+    }
+    
+    /**
+     * Returns the instruction word
+     * @return instruction word
+     */
+    public int getWord() {
+        return instruction.getWord();
+    }
+    
+    /**
+     * Returns the decoded instruction
+     * @return decoded instruction
+     */
+    public DecodedInstruction getInstruction() {
+        return instruction;
+    }
+    
+    /**
+     * Returns the OpCode of the instruction
+     * @return OpCode of the instruction
+     */
+    public OpCode getOpCode() {
+        return instruction.getOpCode();
+    }
+    
+    /**
+     * Returns the value of the first operand - the value read by an ALU
+     * instruction (XV) or the word written by OUT
+     * @return value of the first operand (0 for HLT, INP and JMP)
+     */
+    public int getXValue() {
+        return xValue;
+    }
+    
+    /**
+     * Returns the value of the second operand read by an ALU instruction (YV)
+     * @return value of the second operand (0 for all other instructions)
+     */
+    public int getYValue() {
+        return yValue;
+    }
+    
+    /**
+     * Returns the result of the instruction - the value calculated by an ALU
+     * instruction (ZV) or the word read by INP
+     * @return result of the instruction (0 for HLT, OUT and JMP)
+     */
+    public int getResult() {
+        return result;
+    }
+    
+    /**
+     * Returns the flag register before the instruction
+     * @return 6 bit mask of the flag (see Flag)
+     */
+    public int getFlagsBefore() {
+        return flagsBefore;
+    }
+    
+    /**
+     * Returns the flag register after the instruction
+     * @return 6 bit mask of the flag (see Flag)
+     */
+    public int getFlagsAfter() {
+        return flagsAfter;
+    }
+    
+    /**
+     * Returns the flag bits changed by the instruction
+     * @return 6 bit mask of the changed flag bits
+     */
+    public int getFlagChanges() {
+        return flagsBefore ^ flagsAfter;
+    }
+    
+    /**
+     * Returns the address of the next instruction
+     * @return value of the Program Counter after the instruction
+     */
+    public int getNextAddress() {
+        return nextAddress;
+    }
+    
+    /**
+     * Returns the number of memory writes made by the instruction
+     * @return number of memory writes
+     */
+    public int getWriteCount() {
+        return writeCount;
+    }
+    
+    /**
+     * Returns the address of the given memory write
+     * @param index Index of the write (0 to getWriteCount() - 1)
+     * @return address which was wrote to
+     */
+    public int getWriteAddress(int index) {
+        if(index >= writeCount) {
+            throw new IndexOutOfBoundsException("No memory write " + index);
+        }
+        
+        return writeAddresses[index];
+    }
+    
+    /**
+     * Returns the value of the given memory write
+     * @param index Index of the write (0 to getWriteCount() - 1)
+     * @return word which was wrote
+     */
+    public int getWriteValue(int index) {
+        if(index >= writeCount) {
+            throw new IndexOutOfBoundsException("No memory write " + index);
+        }
+        
+        return writeValues[index];
+    }
+    
+    /**
+     * Returns a summary of the instruction
+     * @return address, instruction and the memory writes it made
+     */
+    @Override public String toString() {
+        StringBuilder summary = new StringBuilder();
+        
+        summary.append(address).append(": ").append(instruction);
+        
+        for(int i = 0; i < writeCount; i++) {
+            summary.append(" [").append(writeAddresses[i]).append("]=").append(writeValues[i]);
+        }
+        
+        return summary.toString();
+    }
+}
@@ -0,0 +1,282 @@
+package uk.ac.hud.postroom.computer;
+
+import java.io.*;
+import java.lang.ref.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+ * WordStore backed by a memory mapped image file of 4 byte (big-endian) 
+ * words.  Words written by the computer are written straight into the file,
+ * so images persist across executions and can be inspected by other tools
+ * while a program runs.  The image is not cleared when the computer is reset.
+ * Words are only accessed by absolute index, so the position of the shared 
+ * buffer is never moved
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class MappedWordStore implements WordStore {
+    
+    /** Number of bytes used to store each word in an image **/
+    public static final int WORD_BYTES = 4;
+    
+    // Image file
+    private File file;
+    
+    // Words of the image file
+    private IntBuffer words;
+    
+    // Mapped bytes of the image file (used to flush changes)
+    private MappedByteBuffer buffer;
+    
+    // Snapshots of the image held by forked stores which may not have copied every page
+    private volatile List<WeakReference<Snapshot>> snapshots = Collections.emptyList();
+    
+    /**
+     * Maps the given image file.  The file is created, or extended with zero 
+     * words, if it holds fewer than the given number of words
+     * @param file Image file
+     * @param size Number of words to map
+     * @throws java.io.IOException if the file can not be opened or mapped
+     */
+    public MappedWordStore(File file, int size) throws IOException {
+        if(size > Integer.MAX_VALUE / WORD_BYTES) {
+            throw new IOException("Images are limited to " + Integer.MAX_VALUE / WORD_BYTES + " words");
+        }
+        
+        this.file = file;
+        
+        RandomAccessFile image = new RandomAccessFile(file, "rw");
+        
+        try {
+            // The mapping remains valid once the channel is closed
+            buffer = image.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) size * WORD_BYTES);
+            words = buffer.asIntBuffer();
+        }finally {
+            image.close();
+        }
+    }
+    
+    /**
+     * Returns the number of words held by the given image file
+     * @param file Image file
+     * @return number of whole words in the file (0 if it does not exist)
+     */
+    public static int getImageSize(File file) {
+        return (int) Math.min(Integer.MAX_VALUE / WORD_BYTES, file.length() / WORD_BYTES);
+    }
+    
+    /**
+     * Returns the image file
+     * @return image file
+     */
+    public File getFile() {
+        return file;
+    }
+    
+    /** @inheritDoc **/
+    public int size() {
+        return words.capacity();
+    }
+    
+    /** @inheritDoc **/
+    public int read(int address) {
+        return words.get(address);
+    }
+    
+    /** @inheritDoc **/
+    public void write(int address, int value) {
+        if(!snapshots.isEmpty()) {
+            preserve(address, 1);
+        }
+        
+        words.put(address, value);
+    }
+    
+    /** @inheritDoc **/
+    public void load(int address, int[] words) {
+        if(!snapshots.isEmpty()) {
+            preserve(address, words.length);
+        }
+        
+        IntBuffer image = this.words.duplicate();
+        image.position(address);
+        image.put(words);
+    }
+    
+    /**
+     * Does nothing - images persist across resets
+     */
+    public void clear() {
+    }
+    
+    /** @inheritDoc **/
+    public void copyTo(int[] words) {
+        this.words.duplicate().get(words, 0, size());
+    }
+    
+    /** @inheritDoc **/
+    public void copyFrom(int[] words) {
+        if(!snapshots.isEmpty()) {
+            preserve(0, size());
+        }
+        
+        this.words.duplicate().put(words, 0, size());
+    }
+    
+    /**
+     * Returns a private, paged copy of the image - words written to the copy
+     * are not written to the image, and words written to the image after
+     * forking are not seen by the copy.  Pages are copied from the image 
+     * when the copy first uses them, or by this store before it first 
+     * writes to them, so forking does not copy the image
+     * @return forked store
+     */
+    public WordStore fork() {
+        Snapshot snapshot = new Snapshot(words, ComputerState.getPageCount(size()));
+        
+        synchronized(this) {
+            List<WeakReference<Snapshot>> live = new ArrayList<WeakReference<Snapshot>>(snapshots);
+            live.add(new WeakReference<Snapshot>(snapshot));
+            
+            snapshots = live;
+        }
+        
+        return new PagedWordStore(size(), snapshot);
+    }
+    
+    /**
+     * Copies the pages holding the given addresses into the snapshots which
+     * have not preserved them, before the addresses are written.  Snapshots
+     * no longer used by a forked store are dropped
+     * @param address First address to be written
+     * @param length Number of addresses to be written
+     */
+    private void preserve(int address, int length) {
+        if(length <= 0) {
+            return;
+        }
+        
+        int first = address >>> PageTable.PAGE_SHIFT;
+        int last = (address + length - 1) >>> PageTable.PAGE_SHIFT;
+        boolean cleared = false;
+        
+        for(WeakReference<Snapshot> reference : snapshots) {
+            Snapshot snapshot = reference.get();
+            
+            if(snapshot == null) {
+                cleared = true;
+                continue;
+            }
+            
+            for(int page = first; page <= last; page++) {
+                snapshot.preserve(page);
+            }
+        }
+        
+        if(cleared) {
+            synchronized(this) {
+                List<WeakReference<Snapshot>> live = new ArrayList<WeakReference<Snapshot>>();
+                
+                for(WeakReference<Snapshot> reference : snapshots) {
+                    if(reference.get() != null) {
+                        live.add(reference);
+                    }
+                }
+                
+                snapshots = live.isEmpty() ? Collections.<WeakReference<Snapshot>>emptyList() : live;
+            }
+        }
+    }
+    
+    /**
+     * Writes any changes held in memory to the image file
+     */
+    public void flush() {
+        buffer.force();
+    }
+    
+    /**
+     * Words of the image at the time a store was forked.  Pages are read from
+     * the image until the image store writes to them - the page is preserved
+     * first so that forked stores still see the words from when they forked
+     */
+    private static final class Snapshot implements PagedWordStore.PageSource {
+        
+        // Words of the image
+        private final IntBuffer words;
+        
+        // Pages which are still read from the image
+        private final BitSet unchanged;
+        
+        // Pages copied before the image store wrote to them - indexed by page
+        private final Map<Integer, int[]> preserved;
+        
+        /**
+         * Constructs a new Snapshot of the given image words
+         * @param words Words of the image
+         * @param pageCount Number of pages in the image
+         */
+        Snapshot(IntBuffer words, int pageCount) {
+            this.words = words;
+            
+            unchanged = new BitSet(pageCount);
+            unchanged.set(0, pageCount);
+            preserved = new HashMap<Integer, int[]>();
+        }
+        
+        /**
+         * Copies the given page from the image if it has not been preserved -
+         * called before the image store writes to the page
+         * @param page Index of the page
+         */
+        synchronized void preserve(int page) {
+            if(unchanged.get(page)) {
+                preserved.put(page, copyPage(page));
+                unchanged.clear(page);
+            }
+        }
+        
+        /** @inheritDoc **/
+        public synchronized int[] readPage(int page) {
+            int[] words = preserved.get(page);
+            
+            return words != null ? words.clone() : copyPage(page);
+        }
+        
+        /**
+         * Copies the given page from the image
+         * @param page Index of the page
+         * @return copy of the words of the page
+         */
+        private int[] copyPage(int page) {
+            int start = page << PageTable.PAGE_SHIFT;
+            int[] copy = new int[PageTable.PAGE_SIZE];
+            
+            IntBuffer image = words.duplicate();
+            image.position(start);
+            image.get(copy, 0, Math.min(copy.length, image.limit() - start));
+            
+            return copy;
+        }
+    }
+    
+    /**
+     * Saves the words of the given memory as an image file
+     * @param memory Memory to save
+     * @param file Image file to write
+     * @throws java.io.IOException throws if an IOException occurs
+     */
+    public static void save(Memory memory, File file) throws IOException {
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        
+        try {
+            for(int address = 0; address < memory.size(); address++) {
+                output.writeInt(memory.read(address));
+            }
+        }finally {
+            output.close();
+        }
+    }
+}
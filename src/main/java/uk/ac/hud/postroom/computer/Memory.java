@@ -6,20 +6,51 @@ import uk.ac.hud.postroom.event.*;
 import java.util.*;
 
 /**
- * Memory component of the Post Room Computer 
+ * Memory component of the Post Room Computer.  Each address holds a single
+ * integer word
  * @author Richard Walton (c0410542@hud.ac.uk)
  */
 public class Memory extends ComputerComponent {
     
-    // Memory store
-    private Map<Integer, String> memory;
+    /** Largest memory (in words) held in a single array **/
+    public static final int SPARSE_SIZE = 1 << 16;
+    
+    // Words held by the memory - indexed by address
+    private WordStore store;
+    
+    // Number of words written since the memory was constructed
+    private long writeCount;
+    
+    // Addresses which break execution when written - one bit per address, paged
+    private PageTable<long[]> watchMask;
+    
+    // Number of watched addresses
+    private int watchCount;
+    
+    // Last watched address written (-1 if none has been written since last checked)
+    private int watchHit;
+    
+    // First read-only address
+    private int readOnlyStart;
+    
+    // Address following the last read-only address (equal to readOnlyStart if none are read-only)
+    private int readOnlyEnd;
+    
+    // Decoded instructions for each address
+    private DecodeCache decodeCache;
+    
+    // Journal recording memory writes (null if execution is not journaled)
+    private ExecutionJournal journal;
     
     // Register store of the computer
     private RegisterStore registerStore;
-
+    
     // Listener list
     private List<MemoryListener> listeners;
     
+    // Cached copy of the listener list (rebuilt when listeners are added / removed)
+    private MemoryListener[] listenerArray;
+    
     /**
      * Constructs a new 100 address Memory component for the given computer
      * @param computer Computer which the memory component is part of
@@ -29,7 +60,9 @@ public class Memory extends ComputerComponent {
     }
     
     /**
-     * Constructs a new Memory component of the given size for the given computer
+     * Constructs a new Memory component of the given size for the given 
+     * computer.  Memories larger than SPARSE_SIZE words are paged - pages 
+     * are only allocated when they are first written
      * @param computer Computer which the memory component is part of
      * @param size Size of the memory
      */
@@ -37,63 +70,61 @@ public class Memory extends ComputerComponent {
         // Super-class (ComputerComponent) constructor
         super(computer);
         
-        memory = new HashMap<Integer, String>(size);
+        store = size > SPARSE_SIZE ? new PagedWordStore(size) : new ArrayWordStore(size);
+        decodeCache = new DecodeCache(size);
+        watchMask = new PageTable<long[]>(size, () -> new long[PageTable.PAGE_SIZE / 64]);
+        watchHit = -1;
         registerStore = computer.getRegisterStore();
         listeners = new ArrayList<MemoryListener>();
+        listenerArray = new MemoryListener[]{};
         
         computer.addComputerListener(new ComputerAdapter() {
             public void computerReset(Computer computer) {
                 reset();
             }
         });
-        
-        for(int i = 0; i < size; i++) {
-            put(i, "0");
-        }
     }
     
     /**
      * Invokes the memory unit to read from the computer register store
-     * and perform either a read or write operation 
+     * and perform either a read or write operation
      */
     protected void invoke() {
         // Reads the memory address register
-        int address = Integer.parseInt(registerStore.readFrom(Register.MAR));
-            
-        try {        
-            // Finds what memory operation should be performed
-            switch(Integer.parseInt(registerStore.readFrom(Register.MRW))) {
-                case 0 : //read
-                    String value = get(address);
-
-                    // Informs listeners
-                    for(MemoryListener listener : getMemoryListeners()) {
-                        listener.memoryReadFrom(this, address, value);
-                    }
+        int address = registerStore.read(Register.MAR);
+        
+        if(address < 0 || address >= store.size()) {
+            // Inform listeners of error
+            fireMemoryError(new Exception("Invalid memory address " + address + 
+                    " (addresses are 0 to " + (store.size() - 1) + ")"));
+            return;
+        }
+        
+        // Finds what memory operation should be performed
+        switch(registerStore.read(Register.MRW)) {
+            case 0 : //read
+                int value = read(address);
                 
-                    // Writes the value to the Memory data register
-                    registerStore.writeTo(Register.MDR, value);
+                // Informs listeners
+                fireMemoryReadFrom(address, value);
                 
-                    break;
-            
-                case 1 : //write
-                    String data = registerStore.readFrom(Register.MDR);
+                // Writes the value to the Memory data register
+                registerStore.write(Register.MDR, value);
                 
-                    // Writes the vaue from the Memory data register to memory
-                    put(address, data);
+                break;
                 
-                    // Informs listeners
-                    for(MemoryListener listener : getMemoryListeners()) {
-                        listener.memoryWroteTo(this, address, data);
-                    }
+            case 1 : //write
+                int data = registerStore.read(Register.MDR);
                 
-                    break;
-            }
-        }catch (Exception e) {
-            // Inform listeners of error
-            for(MemoryListener listener : getMemoryListeners()) {
-                listener.memoryError(this, new Exception("Invalid memory address " + address));
-            }
+                // Writes the vaue from the Memory data register to memory
+                write(address, data);
+                
+                // Informs listeners (read-only addresses have already reported an error)
+                if(!isReadOnly(address)) {
+                    fireMemoryWroteTo(address, data);
+                }
+                
+                break;
         }
     }
     
@@ -101,9 +132,172 @@ public class Memory extends ComputerComponent {
      * Writes zeros to all the memory locations - No listeners are fired
      */
     protected void reset() {
-        for(int i = 0; i < size(); i++) {
-            put(i, "0");
+        store.clear();
+        decodeCache.clear();
+    }
+    
+    /**
+     * Returns the word at the given address (No listeners are fired)
+     * @param address Address to read from
+     * @return Word at the given address
+     */
+    public int read(int address) {
+        return store.read(address);
+    }
+    
+    /**
+     * Stores a word at the given address, invalidating any instruction 
+     * decoded from it (No listeners are fired).  Writing to a read-only 
+     * address informs listeners of an error and leaves the word unchanged
+     * @param address Address to write to
+     * @param value Word to write
+     */
+    public void write(int address, int value) {
+        if(address < readOnlyEnd && address >= readOnlyStart) {
+            fireMemoryError(new Exception("Write to read-only code address " + address));
+            return;
+        }
+        
+        if(journal != null) {
+            journal.recordMemory(address, store.read(address));
+        }
+        
+        store.write(address, value);
+        decodeCache.invalidate(address);
+        writeCount++;
+        
+        if(watchCount > 0 && isWatchPoint(address)) {
+            watchHit = address;
+        }
+    }
+    
+    /**
+     * Sets the journal which records memory writes
+     * @param journal execution journal (null to stop journaling)
+     */
+    protected void setJournal(ExecutionJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Captures the words in memory page by page (No listeners are fired).  
+     * The pages of a PagedWordStore are shared copy-on-write rather than 
+     * copied, other stores are copied a page at a time
+     * @return pages of PageTable.PAGE_SIZE words indexed by address >>> 
+     * PAGE_SHIFT (null for pages holding only zeros)
+     */
+    protected int[][] snapshotPages() {
+        int size = store.size();
+        int[][] pages = new int[ComputerState.getPageCount(size)][];
+        
+        if(store instanceof PagedWordStore) {
+            PagedWordStore paged = (PagedWordStore) store;
+            
+            for(int page = 0; page < pages.length; page++) {
+                pages[page] = paged.sharePage(page);
+            }
+            
+            return pages;
+        }
+        
+        for(int page = 0; page < pages.length; page++) {
+            int start = page << PageTable.PAGE_SHIFT;
+            int length = ComputerState.getPageLength(size, page);
+            
+            for(int i = 0; i < length; i++) {
+                int word = store.read(start + i);
+                
+                if(word != 0) {
+                    if(pages[page] == null) {
+                        pages[page] = new int[PageTable.PAGE_SIZE];
+                    }
+                    
+                    pages[page][i] = word;
+                }
+            }
+        }
+        
+        return pages;
+    }
+    
+    /**
+     * Copies consecutive words of memory into the given array (No listeners are fired)
+     * @param address Address of the first word
+     * @param snapshot Array to copy the words into
+     */
+    protected void snapshot(int address, int[] snapshot) {
+        for(int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = store.read(address + i);
+        }
+    }
+
+    /**
+     * Restores all the addresses page by page from pages captured by 
+     * snapshotPages() - the pages of a PagedWordStore are shared copy-on-write 
+     * rather than copied.  Listeners are informed once for the whole range
+     * @param pages Pages of PageTable.PAGE_SIZE words indexed by address >>>
+     * PAGE_SHIFT (null for pages holding only zeros)
+     */
+    protected void restorePages(int[][] pages) {
+        int size = store.size();
+        
+        if(store instanceof PagedWordStore) {
+            PagedWordStore paged = (PagedWordStore) store;
+            
+            for(int page = 0; page < pages.length; page++) {
+                paged.restorePage(page, pages[page]);
+            }
+        }else {
+            int[] zeros = new int[PageTable.PAGE_SIZE];
+            
+            for(int page = 0; page < pages.length; page++) {
+                int[] words = pages[page] != null ? pages[page] : zeros;
+                int length = ComputerState.getPageLength(size, page);
+                
+                store.load(page << PageTable.PAGE_SHIFT, 
+                        length == words.length ? words : Arrays.copyOf(words, length));
+            }
+        }
+        
+        decodeCache.clear();
+        
+        fireMemoryRangeWritten(0, size);
+    }
+    
+    /**
+     * Restores a word to the given address without counting it as a write.
+     * Listeners are informed so that displays update
+     * @param address Address to restore
+     * @param value Word to restore
+     */
+    protected void restore(int address, int value) {
+        store.write(address, value);
+        decodeCache.invalidate(address);
+        
+        fireMemoryWroteTo(address, value);
+    }
+    
+    /**
+     * Stores the given words at consecutive addresses with a single copy.
+     * The words are not counted as memory writes.  Listeners are informed 
+     * once for the whole range
+     * @param address Address of the first word
+     * @param words Words to store
+     * @throws IllegalArgumentException if the words do not fit in memory
+     */
+    public void load(int address, int[] words) {
+        if(address < 0 || address + (long) words.length > store.size()) {
+            throw new IllegalArgumentException("Invalid memory address " + 
+                    (address < 0 ? address : address + words.length - 1));
+        }
+        
+        store.load(address, words);
+        
+        for(int i = address; i < address + words.length; i++) {
+            decodeCache.invalidate(i);
         }
+        
+        fireMemoryRangeWritten(address, words.length);
     }
     
     /**
@@ -112,16 +306,132 @@ public class Memory extends ComputerComponent {
      * @return Value at the given address
      */
     public String get(int address) {
-        return memory.get(address);
+        return Integer.toString(read(address));
     }
     
     /**
      * Stores a value at the given address (No listeners are fired)
      * @param address Address to write to
-     * @param value Value to write
+     * @param value Value to write - must be an integer
      */
     public void put(int address, String value) {
-        memory.put(address, value);
+        write(address, Integer.parseInt(value));
+    }
+    
+    /**
+     * Marks a range of addresses read-only.  Loading and restoring memory 
+     * ignores the range
+     * @param start First read-only address
+     * @param end Address following the last read-only address (start to 
+     * make every address writable)
+     */
+    public void setReadOnly(int start, int end) {
+        readOnlyStart = start;
+        readOnlyEnd = Math.max(start, end);
+    }
+    
+    /**
+     * Returns whether writing to the given address is an error
+     * @param address Memory address
+     * @return true if the address is read-only
+     */
+    public boolean isReadOnly(int address) {
+        return address < readOnlyEnd && address >= readOnlyStart;
+    }
+    
+    /**
+     * Returns the first read-only address
+     * @return start of the read-only range
+     */
+    public int getReadOnlyStart() {
+        return readOnlyStart;
+    }
+    
+    /**
+     * Returns the address following the last read-only address
+     * @return end of the read-only range (equal to the start if no addresses
+     * are read-only)
+     */
+    public int getReadOnlyEnd() {
+        return readOnlyEnd;
+    }
+    
+    /**
+     * Sets whether writing to the given address breaks execution
+     * @param address Address to watch
+     * @param watched true to break when the address is written
+     */
+    public void setWatchPoint(int address, boolean watched) {
+        if(isWatchPoint(address) == watched) {
+            return;
+        }
+        
+        watchMask.allocate(address)[(address & PageTable.PAGE_MASK) >>> 6] ^= 1L << address;
+        watchCount += watched ? 1 : -1;
+    }
+    
+    /**
+     * Returns whether writing to the given address breaks execution
+     * @param address Memory address
+     * @return true if the address is watched
+     */
+    public boolean isWatchPoint(int address) {
+        long[] page = watchMask.get(address);
+        
+        return page != null && (page[(address & PageTable.PAGE_MASK) >>> 6] & (1L << address)) != 0;
+    }
+    
+    /**
+     * Returns whether any addresses are watched
+     * @return true if at least one address is watched
+     */
+    public boolean hasWatchPoints() {
+        return watchCount > 0;
+    }
+    
+    /**
+     * Stops watching all addresses
+     */
+    public void clearWatchPoints() {
+        watchMask.clear();
+        watchCount = 0;
+        watchHit = -1;
+    }
+    
+    /**
+     * Returns the last watched address written and clears it
+     * @return last watched address written or -1 if no watched address 
+     * has been written since the last call
+     */
+    public int takeWatchHit() {
+        int address = watchHit;
+        watchHit = -1;
+        
+        return address;
+    }
+    
+    /**
+     * Returns the number of words written to memory since it was constructed
+     * @return number of memory writes
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+    
+    /**
+     * Returns the cache of instructions decoded from this memory
+     * @return decode cache of this memory
+     */
+    public DecodeCache getDecodeCache() {
+        return decodeCache;
+    }
+    
+    /**
+     * Replaces the cache of instructions decoded from this memory
+     * @param decodeCache new decode cache - must be the same size as the memory
+     */
+    public void setDecodeCache(DecodeCache decodeCache) {
+        this.decodeCache = decodeCache;
     }
     
     /**
@@ -129,7 +439,31 @@ public class Memory extends ComputerComponent {
      * @return size of the memory
      */
     public int size() {
-        return memory.size();
+        return store.size();
+    }
+    
+    /**
+     * Returns the store holding the words of this memory
+     * @return word store of this memory
+     */
+    public WordStore getWordStore() {
+        return store;
+    }
+    
+    /**
+     * Replaces the store holding the words of this memory - the words of the
+     * new store become the contents of memory (No listeners are fired)
+     * @param store new word store - must be the same size as the memory
+     * @throws IllegalArgumentException if the store is a different size
+     */
+    public void setWordStore(WordStore store) {
+        if(store.size() != size()) {
+            throw new IllegalArgumentException("Word store size " + store.size() + 
+                    " does not match memory size " + size());
+        }
+        
+        this.store = store;
+        decodeCache.clear();
     }
     
     /**
@@ -137,7 +471,10 @@ public class Memory extends ComputerComponent {
      * @param listener listener to add
      */
     public void addMemoryListener(MemoryListener listener) {
-        if(listener != null) listeners.add(listener);
+        if(listener != null) {
+            listeners.add(listener);
+            listenerArray = listeners.toArray(new MemoryListener[]{});
+        }
     }
     
     /**
@@ -145,7 +482,7 @@ public class Memory extends ComputerComponent {
      * @return Array of Memory Listeners
      */
     public MemoryListener[] getMemoryListeners() {
-        return listeners.toArray(new MemoryListener[]{});
+        return listenerArray.clone();
     }
     
     /**
@@ -154,5 +491,70 @@ public class Memory extends ComputerComponent {
      */
     public void removeMemoryListener(MemoryListener listener) {
         listeners.remove(listener);
+        listenerArray = listeners.toArray(new MemoryListener[]{});
+    }
+    
+    /**
+     * Informs attached listeners that the given address was read from
+     * @param address Address which was read
+     * @param value Word which was read
+     */
+    private void fireMemoryReadFrom(int address, int value) {
+        MemoryListener[] listeners = listenerArray;
+        
+        if(listeners.length > 0) {
+            String text = Integer.toString(value);
+            
+            for(MemoryListener listener : listeners) {
+                listener.memoryReadFrom(this, address, text);
+            }
+        }
+    }
+    
+    /**
+     * Informs attached listeners that the given address was wrote to
+     * @param address Address which was wrote to
+     * @param value Word which was wrote
+     */
+    private void fireMemoryWroteTo(int address, int value) {
+        MemoryListener[] listeners = listenerArray;
+        
+        if(listeners.length > 0) {
+            String text = Integer.toString(value);
+            
+            for(MemoryListener listener : listeners) {
+                listener.memoryWroteTo(this, address, text);
+            }
+        }
+    }
+    
+    /**
+     * Informs attached listeners that any address may have changed - used 
+     * after words have been written without informing listeners (e.g. by 
+     * compiled code)
+     */
+    protected void fireMemoryChanged() {
+        fireMemoryRangeWritten(0, store.size());
+    }
+    
+    /**
+     * Informs attached listeners that a range of addresses was wrote to
+     * @param address First address which was wrote to
+     * @param length Number of addresses wrote to
+     */
+    private void fireMemoryRangeWritten(int address, int length) {
+        for(MemoryListener listener : listenerArray) {
+            listener.memoryRangeWritten(this, address, length);
+        }
+    }
+    
+    /**
+     * Informs attached listeners that an error occured
+     * @param error Error which occured
+     */
+    private void fireMemoryError(Throwable error) {
+        for(MemoryListener listener : listenerArray) {
+            listener.memoryError(this, error);
+        }
     }
-}
\ No newline at end of file
+}
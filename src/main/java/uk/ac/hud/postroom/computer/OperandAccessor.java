@@ -0,0 +1,396 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+import uk.ac.hud.postroom.computer.DecodedInstruction.Operand;
+
+/**
+ * A register address operand compiled for its AddressMode.  Each operand is
+ * compiled once, when its instruction is decoded, so executing the operand
+ * reads and writes the register / memory it refers to without decoding the
+ * address mode or register again
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+abstract class OperandAccessor {
+    
+    // AddressMode the operand was compiled for
+    private final AddressMode addressMode;
+    
+    // Address type written to XAT / YAT / ZAT (0 - memory, 1 - register, 2 - immediate)
+    private final int addressType;
+    
+    /**
+     * Constructs a new OperandAccessor
+     * @param addressMode AddressMode the operand was compiled for
+     */
+    private OperandAccessor(AddressMode addressMode) {
+        this.addressMode = addressMode;
+        
+        switch(addressMode) {
+            case IMMEDIATE_DIRECT :
+                addressType = 2;
+                break;
+            case IMMEDIATE_INDIRECT :
+                addressType = 0;
+                break;
+            default :
+                addressType = 1;
+        }
+    }
+    
+    /**
+     * Compiles the given operand into an accessor for its AddressMode
+     * @param operand Decoded operand
+     * @return accessor for the operand
+     */
+    static OperandAccessor compile(Operand operand) {
+        AddressMode addressMode = operand.getAddressMode();
+        Register register = operand.getRegister();
+        int value = operand.getValue();
+        
+        switch(addressMode) {
+            case IMMEDIATE_DIRECT :
+                return new ImmediateDirect(value);
+            case IMMEDIATE_INDIRECT :
+                return new ImmediateIndirect(value);
+        }
+        
+        // All other address modes use a register
+        if(register == null) {
+            return new UnknownRegister(addressMode, value);
+        }
+        
+        switch(addressMode) {
+            case REGISTER_DIRECT :
+                return new RegisterDirect(register);
+            case REGISTER_INDIRECT :
+                return new RegisterIndirect(register);
+            case BASE_DIRECT :
+                return new BaseDirect(register);
+            case BASE_INDIRECT :
+                return new Indirect(addressMode, new BaseDirect(register));
+            case PREDECREMENT_DIRECT :
+                return new PredecrementDirect(register);
+            case PREDECREMENT_INDIRECT :
+                return new Indirect(addressMode, new PredecrementDirect(register));
+            case POSTINCREMENT_DIRECT :
+                return new PostincrementDirect(register);
+            default :
+                return new Indirect(addressMode, new PostincrementDirect(register));
+        }
+    }
+    
+    /**
+     * Returns the AddressMode the operand was compiled for
+     * @return AddressMode of the operand
+     */
+    AddressMode getAddressMode() {
+        return addressMode;
+    }
+    
+    /**
+     * Returns the address type of the operand used by the ALU
+     * @return 0 for memory, 1 for register and 2 for immediate operands
+     */
+    int getAddressType() {
+        return addressType;
+    }
+    
+    /**
+     * Returns whether the operand's register is incremented after the operand
+     * has been used
+     * @return true if the AddressMode is POSTINCREMENT_DIRECT or POSTINCREMENT_INDIRECT
+     */
+    boolean isPostIncrement() {
+        return addressMode == AddressMode.POSTINCREMENT_DIRECT ||
+                addressMode == AddressMode.POSTINCREMENT_INDIRECT;
+    }
+    
+    /**
+     * Returns the value specified by the operand
+     * @param computer Computer executing the operand
+     * @param update true to update the operand's register (pre-decrement / post-increment)
+     * @return The value (either an absolute value, value read from memory,
+     * or a value read from a register)
+     */
+    abstract int read(AbstractComputer computer, boolean update);
+    
+    /**
+     * Writes the given value to the location specified by the operand.  
+     * Pre-decrement operands are not updated (the register was updated when 
+     * the operand was read) and post-increment operands update their register
+     * after writing
+     * @param computer Computer executing the operand
+     * @param value Word to write
+     */
+    abstract void write(AbstractComputer computer, int value);
+    
+    /**
+     * Returns the effective memory address specified by the operand
+     * @param computer Computer executing the operand
+     * @param update true to update the operand's register (pre-decrement / post-increment)
+     * @return The effective memory address or -1 if the operand does not
+     * point to memory
+     */
+    abstract int effectiveAddress(AbstractComputer computer, boolean update);
+    
+    /**
+     * Operand which points to memory
+     */
+    private static abstract class MemoryOperand extends OperandAccessor {
+        
+        /**
+         * Constructs a new MemoryOperand
+         * @param addressMode AddressMode the operand was compiled for
+         */
+        MemoryOperand(AddressMode addressMode) {
+            super(addressMode);
+        }
+        
+        /** @inheritDoc **/
+        int read(AbstractComputer computer, boolean update) {
+            return computer.readFromMemory(effectiveAddress(computer, update));
+        }
+        
+        /** @inheritDoc **/
+        void write(AbstractComputer computer, int value) {
+            computer.writeToMemory(effectiveAddress(computer, false), value);
+            
+            if(isPostIncrement()) {
+                effectiveAddress(computer, true);
+            }
+        }
+    }
+    
+    /**
+     * Immediate direct - the operand is an absolute value
+     */
+    private static final class ImmediateDirect extends OperandAccessor {
+        
+        // Absolute value
+        private final int value;
+        
+        ImmediateDirect(int value) {
+            super(AddressMode.IMMEDIATE_DIRECT);
+            
+            this.value = value;
+        }
+        
+        /** @inheritDoc **/
+        int read(AbstractComputer computer, boolean update) {
+            return value;
+        }
+        
+        /** @inheritDoc **/
+        void write(AbstractComputer computer, int value) {
+            throw new IllegalStateException("Invalid address mode for return address");
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return -1; // invalid operand
+        }
+    }
+    
+    /**
+     * Immediate indirect - the operand is an absolute memory address
+     */
+    private static final class ImmediateIndirect extends MemoryOperand {
+        
+        // Absolute memory address
+        private final int address;
+        
+        ImmediateIndirect(int address) {
+            super(AddressMode.IMMEDIATE_INDIRECT);
+            
+            this.address = address;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return address;
+        }
+    }
+    
+    /**
+     * Register direct - the operand is a register
+     */
+    private static final class RegisterDirect extends OperandAccessor {
+        
+        // Register of the operand
+        private final Register register;
+        
+        RegisterDirect(Register register) {
+            super(AddressMode.REGISTER_DIRECT);
+            
+            this.register = register;
+        }
+        
+        /** @inheritDoc **/
+        int read(AbstractComputer computer, boolean update) {
+            return computer.registerStore.read(register);
+        }
+        
+        /** @inheritDoc **/
+        void write(AbstractComputer computer, int value) {
+            computer.registerStore.write(register, value);
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return -1; // not a memory address
+        }
+    }
+    
+    /**
+     * Register indirect - the register holds the memory address
+     */
+    private static final class RegisterIndirect extends MemoryOperand {
+        
+        // Register of the operand
+        private final Register register;
+        
+        RegisterIndirect(Register register) {
+            super(AddressMode.REGISTER_INDIRECT);
+            
+            this.register = register;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return computer.registerStore.read(register);
+        }
+    }
+    
+    /**
+     * Base direct - the memory address is the register offset from BSE
+     */
+    private static final class BaseDirect extends MemoryOperand {
+        
+        // Register of the operand
+        private final Register register;
+        
+        BaseDirect(Register register) {
+            super(AddressMode.BASE_DIRECT);
+            
+            this.register = register;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return computer.registerStore.read(Register.BSE) +
+                    computer.registerStore.read(register);
+        }
+    }
+    
+    /**
+     * Predecrement direct - the register is decremented then holds the memory address
+     */
+    private static final class PredecrementDirect extends MemoryOperand {
+        
+        // Register of the operand
+        private final Register register;
+        
+        PredecrementDirect(Register register) {
+            super(AddressMode.PREDECREMENT_DIRECT);
+            
+            this.register = register;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            int value = computer.registerStore.read(register);
+            
+            if(update) {
+                value = value - 1;
+                computer.registerStore.write(register, value);
+            }
+            
+            return value;
+        }
+    }
+    
+    /**
+     * Postincrement direct - the register holds the memory address then is incremented
+     */
+    private static final class PostincrementDirect extends MemoryOperand {
+        
+        // Register of the operand
+        private final Register register;
+        
+        PostincrementDirect(Register register) {
+            super(AddressMode.POSTINCREMENT_DIRECT);
+            
+            this.register = register;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            int value = computer.registerStore.read(register);
+            
+            if(update) {
+                computer.registerStore.write(register, value + 1);
+            }
+            
+            return value;
+        }
+    }
+    
+    /**
+     * Indirect form of a memory operand - the memory address is read from
+     * the address specified by the direct form
+     */
+    private static final class Indirect extends MemoryOperand {
+        
+        // Direct form of the operand
+        private final MemoryOperand pointer;
+        
+        Indirect(AddressMode addressMode, MemoryOperand pointer) {
+            super(addressMode);
+            
+            this.pointer = pointer;
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            return computer.readFromMemory(pointer.effectiveAddress(computer, update));
+        }
+    }
+    
+    /**
+     * Operand with a register field which does not match any Register
+     */
+    private static final class UnknownRegister extends OperandAccessor {
+        
+        // Register field of the operand
+        private final int registerID;
+        
+        UnknownRegister(AddressMode addressMode, int registerID) {
+            super(addressMode);
+            
+            this.registerID = registerID;
+        }
+        
+        /** @inheritDoc **/
+        int read(AbstractComputer computer, boolean update) {
+            throw unknownRegister();
+        }
+        
+        /** @inheritDoc **/
+        void write(AbstractComputer computer, int value) {
+            throw unknownRegister();
+        }
+        
+        /** @inheritDoc **/
+        int effectiveAddress(AbstractComputer computer, boolean update) {
+            throw unknownRegister();
+        }
+        
+        /**
+         * Returns the exception thrown when the operand is used
+         * @return exception reporting the unknown register
+         */
+        private IllegalArgumentException unknownRegister() {
+            return new IllegalArgumentException("No Register with ID " + registerID);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package uk.ac.hud.postroom.computer;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Per-address data kept alongside a memory, split into the same fixed size
+ * pages as a PagedWordStore.  A page is only allocated when an address in it
+ * is first set, so the caches of a large sparse memory only hold the pages
+ * which are used.  Clearing the table only visits the allocated pages
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+final class PageTable<P> {
+    
+    /** Number of addresses in a page = 2 ^ PAGE_SHIFT **/
+    static final int PAGE_SHIFT = PagedWordStore.PAGE_SHIFT;
+    
+    /** Number of addresses in a page **/
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    
+    /** Mask of an address within its page **/
+    static final int PAGE_MASK = PAGE_SIZE - 1;
+    
+    // Number of addresses covered
+    private final int size;
+    
+    // Creates an empty page
+    private final Supplier<P> factory;
+    
+    // Pages indexed by address >>> PAGE_SHIFT (null until first allocated)
+    private final Object[] pages;
+    
+    // Indexes of the allocated pages
+    private int[] allocated;
+    
+    // Number of allocated pages
+    private int allocatedCount;
+    
+    /**
+     * Constructs a new PageTable covering the given number of addresses
+     * @param size Number of addresses
+     * @param factory Creates an empty page holding PAGE_SIZE addresses
+     */
+    PageTable(int size, Supplier<P> factory) {
+        this.size = size;
+        this.factory = factory;
+        
+        pages = new Object[(int) ((size + (long) PAGE_MASK) >>> PAGE_SHIFT)];
+        allocated = new int[Math.min(pages.length, 16)];
+    }
+    
+    /**
+     * Returns the number of addresses covered
+     * @return size of the table
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the page holding the given address
+     * @param address Address
+     * @return page or null if the page has not been allocated or the address
+     * is not covered
+     */
+    @SuppressWarnings("unchecked")
+    P get(int address) {
+        return address >= 0 && address < size ? (P) pages[address >>> PAGE_SHIFT] : null;
+    }
+    
+    /**
+     * Returns the page holding the given address, allocating it if necessary
+     * @param address Address
+     * @return page holding the address
+     * @throws ArrayIndexOutOfBoundsException if the address is not covered
+     */
+    @SuppressWarnings("unchecked")
+    P allocate(int address) {
+        if(address < 0 || address >= size) {
+            throw new ArrayIndexOutOfBoundsException(address);
+        }
+        
+        int index = address >>> PAGE_SHIFT;
+        
+        if(pages[index] == null) {
+            pages[index] = factory.get();
+            
+            if(allocatedCount == allocated.length) {
+                allocated = Arrays.copyOf(allocated, allocatedCount * 2);
+            }
+            
+            allocated[allocatedCount++] = index;
+        }
+        
+        return (P) pages[index];
+    }
+    
+    /**
+     * Discards all the allocated pages
+     */
+    void clear() {
+        for(int i = 0; i < allocatedCount; i++) {
+            pages[allocated[i]] = null;
+        }
+        
+        allocatedCount = 0;
+    }
+}
@@ -0,0 +1,281 @@
+package uk.ac.hud.postroom.computer;
+
+import java.util.*;
+
+/**
+ * WordStore which splits the address space into fixed size pages.  Forked
+ * stores share their pages copy-on-write - a shared page is only copied 
+ * when one of the stores first writes to it, so forking costs one reference
+ * per page rather than one word per address.  Each page is stamped with the
+ * generation of the store it was last written in - clearing the store starts
+ * a new generation, so pages from earlier generations read as zeros without
+ * being touched.  Pages are only allocated when they are first written, or
+ * (for a store forked from another kind of store) copied from a PageSource 
+ * when they are first used
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class PagedWordStore implements WordStore {
+    
+    /**
+     * Source of the pages of a store which have not yet been copied into it
+     */
+    interface PageSource {
+        
+        /**
+         * Returns a copy of the words of the given page
+         * @param page Index of the page
+         * @return PAGE_SIZE words which the caller may modify
+         */
+        int[] readPage(int page);
+    }
+    
+    /** Number of words in a page = 2 ^ PAGE_SHIFT **/
+    public static final int PAGE_SHIFT = 10;
+    
+    // Number of words in a page
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    
+    // Mask of the address of a word within its page
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    
+    // Number of words which can be stored
+    private int size;
+    
+    // Pages of words indexed by address >>> PAGE_SHIFT (null until first written)
+    private int[][] pages;
+    
+    // Generation each page was last written in
+    private int[] stamps;
+    
+    // Whether each page may also be referenced by another store
+    private boolean[] shared;
+    
+    // Current generation - pages stamped with any other generation hold zeros
+    private int generation;
+    
+    // Source of the pages of the current generation which are null (null if there are none)
+    private PageSource source;
+    
+    /**
+     * Constructs a new PagedWordStore holding the given number of words
+     * @param size Number of words
+     */
+    public PagedWordStore(int size) {
+        this.size = size;
+        
+        int pageCount = (int) ((size + (long) PAGE_MASK) >>> PAGE_SHIFT);
+        
+        pages = new int[pageCount][];
+        stamps = new int[pageCount];
+        shared = new boolean[pageCount];
+        generation = 1;
+    }
+    
+    /**
+     * Constructs a new PagedWordStore holding the words of the given source.
+     * Each page is copied from the source when it is first used
+     * @param size Number of words
+     * @param source Source of the pages
+     */
+    PagedWordStore(int size, PageSource source) {
+        this(size);
+        
+        // Current pages which are null are copied from the source
+        this.source = source;
+        Arrays.fill(stamps, generation);
+    }
+    
+    /**
+     * Constructs a new PagedWordStore sharing all the pages of the given store
+     * @param store Store to share pages with
+     */
+    private PagedWordStore(PagedWordStore store) {
+        size = store.size;
+        pages = store.pages.clone();
+        stamps = store.stamps.clone();
+        shared = new boolean[pages.length];
+        generation = store.generation;
+        source = store.source;
+        
+        Arrays.fill(shared, true);
+        Arrays.fill(store.shared, true);
+    }
+    
+    /** @inheritDoc **/
+    public int size() {
+        return size;
+    }
+    
+    /** @inheritDoc **/
+    public int read(int address) {
+        if(address >= size) {
+            throw new ArrayIndexOutOfBoundsException(address);
+        }
+        
+        int page = address >>> PAGE_SHIFT;
+        
+        if(stamps[page] != generation) {
+            return 0;
+        }
+        
+        int[] words = pages[page];
+        
+        return (words != null ? words : copyFromSource(page))[address & PAGE_MASK];
+    }
+    
+    /** @inheritDoc **/
+    public void write(int address, int value) {
+        if(address >= size) {
+            throw new ArrayIndexOutOfBoundsException(address);
+        }
+        
+        writablePage(address >>> PAGE_SHIFT)[address & PAGE_MASK] = value;
+    }
+    
+    /** @inheritDoc **/
+    public void load(int address, int[] words) {
+        if(address < 0 || address + words.length > size) {
+            throw new ArrayIndexOutOfBoundsException(address + words.length - 1);
+        }
+        
+        // Copy the words page by page
+        for(int i = 0; i < words.length; ) {
+            int target = address + i;
+            int length = Math.min(words.length - i, PAGE_SIZE - (target & PAGE_MASK));
+            
+            System.arraycopy(words, i, writablePage(target >>> PAGE_SHIFT), target & PAGE_MASK, length);
+            
+            i += length;
+        }
+    }
+    
+    /** 
+     * Starts a new generation - takes constant time regardless of the size
+     * of the store 
+     */
+    public void clear() {
+        generation++;
+        
+        // Generations have wrapped - stamps from earlier generations may match
+        if(generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+    
+    /** @inheritDoc **/
+    public void copyTo(int[] words) {
+        for(int page = 0; page < pages.length; page++) {
+            int start = page << PAGE_SHIFT;
+            int length = Math.min(PAGE_SIZE, size - start);
+            
+            if(stamps[page] == generation) {
+                System.arraycopy(currentPage(page), 0, words, start, length);
+            }else {
+                Arrays.fill(words, start, start + length, 0);
+            }
+        }
+    }
+    
+    /** @inheritDoc **/
+    public void copyFrom(int[] words) {
+        for(int page = 0; page < pages.length; page++) {
+            int start = page << PAGE_SHIFT;
+            
+            System.arraycopy(words, start, writablePage(page), 0, Math.min(PAGE_SIZE, size - start));
+        }
+    }
+    
+    /**
+     * Returns a store which shares all the pages of this store - pages are 
+     * copied when either store first writes to them
+     * @return forked store
+     */
+    public WordStore fork() {
+        return new PagedWordStore(this);
+    }
+    
+    /**
+     * Returns the words of the given page, which are then shared copy-on-write
+     * - the store copies the page before it next writes to it
+     * @param page Index of the page
+     * @return words of the page (PAGE_SIZE words - must not be modified) or 
+     * null if the page holds only zeros
+     */
+    int[] sharePage(int page) {
+        if(stamps[page] != generation) {
+            return null;
+        }
+        
+        int[] words = currentPage(page);
+        shared[page] = true;
+        
+        return words;
+    }
+    
+    /**
+     * Replaces the given page with the given words, which are shared 
+     * copy-on-write rather than copied
+     * @param page Index of the page
+     * @param words PAGE_SIZE words (must not be modified) or null for zeros
+     */
+    void restorePage(int page, int[] words) {
+        if(words == null) {
+            // Generation 0 is never current
+            stamps[page] = 0;
+            return;
+        }
+        
+        pages[page] = words;
+        stamps[page] = generation;
+        shared[page] = true;
+    }
+    
+    /**
+     * Returns the given page ready to be written - pages from earlier 
+     * generations are zeroed and shared pages are replaced with a copy
+     * @param page Index of the page
+     * @return page which can be written
+     */
+    private int[] writablePage(int page) {
+        if(stamps[page] != generation) {
+            if(pages[page] == null || shared[page]) {
+                pages[page] = new int[PAGE_SIZE];
+            }else {
+                Arrays.fill(pages[page], 0);
+            }
+            
+            stamps[page] = generation;
+            shared[page] = false;
+        }else if(pages[page] == null) {
+            copyFromSource(page);
+        }else if(shared[page]) {
+            pages[page] = pages[page].clone();
+            shared[page] = false;
+        }
+        
+        return pages[page];
+    }
+    
+    /**
+     * Returns the given page of the current generation, copying it from the
+     * source if it has not been used
+     * @param page Index of the page
+     * @return words of the page
+     */
+    private int[] currentPage(int page) {
+        return pages[page] != null ? pages[page] : copyFromSource(page);
+    }
+    
+    /**
+     * Copies the given page from the source
+     * @param page Index of the page
+     * @return words of the page
+     */
+    private int[] copyFromSource(int page) {
+        pages[page] = source.readPage(page);
+        shared[page] = false;
+        
+        return pages[page];
+    }
+}
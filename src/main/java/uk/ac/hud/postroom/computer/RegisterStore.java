@@ -6,17 +6,32 @@ import uk.ac.hud.postroom.event.*;
 import java.util.*;
 
 /**
- * Registers component of the Post Room Computer
+ * Registers component of the Post Room Computer.  Each register holds a 
+ * single integer word, indexed by the ordinal of the Register.  The Carry 
+ * register is wider than a word - it holds up to ten digits and a sign (see 
+ * CARRY_SIGN) so is accessed through readLong / writeLong
  * @author Richard Walton (c0410542@hud.ac.uk)
  */
 public class RegisterStore extends ComputerComponent {
     
-    // Data store for each Register
-    private Map<Register, String> registerStore;
+    /**
+     * Bit set in the Carry register when the carried digits follow a sign - 
+     * the remaining bits hold the (up to ten digit) magnitude of the carry
+     */
+    static final long CARRY_SIGN = 1L << 40;
+    
+    // Data store for each Register - indexed by Register.ordinal()
+    private long[] registerStore;
+    
+    // Journal recording register writes (null if execution is not journaled)
+    private ExecutionJournal journal;
     
     // Listener list
     private List<RegisterListener> listeners;
     
+    // Cached copy of the listener list (rebuilt when listeners are added / removed)
+    private RegisterListener[] listenerArray;
+    
     /**
      * Constructs a new Register store for the given computer
      * @param computer Computer which this Register store is part of
@@ -25,8 +40,9 @@ public class RegisterStore extends ComputerComponent {
         // Super-class (ComputerComponent) constructor
         super(computer);
         
-        registerStore = new HashMap<Register, String>();
+        registerStore = new long[Register.values().length];
         listeners = new ArrayList<RegisterListener>();
+        listenerArray = new RegisterListener[]{};
         
         computer.addComputerListener(new ComputerAdapter() {
             public void computerReset(Computer computer) {
@@ -39,32 +55,176 @@ public class RegisterStore extends ComputerComponent {
     }
     
     /**
-     * Returns the value stored in the given register
+     * Returns the word stored in the given register
+     * @param register Register to read from
+     * @return word stored in the given register
+     */
+    protected int read(Register register) {
+        return (int) readLong(register);
+    }
+    
+    /**
+     * Returns the value stored in the given register, including the sign and
+     * all ten digits of the Carry register
      * @param register Register to read from
      * @return value stored in the given register
      */
-    protected String readFrom(Register register) {
-        String value = registerStore.get(register);
+    protected long readLong(Register register) {
+        long value = registerStore[register.ordinal()];
         
         // Inform listeners
-        for(RegisterListener listener : getRegisterListeners()) {
-            listener.registerReadFrom(this, register, value);
+        RegisterListener[] listeners = listenerArray;
+        if(listeners.length > 0) {
+            String text = format(register, value);
+            
+            for(RegisterListener listener : listeners) {
+                listener.registerReadFrom(this, register, text);
+            }
         }
         
         return value;
     }
     
     /**
-     * Writes a value to the given register
+     * Writes a word to the given register
+     * @param register Register to write to
+     * @param value Word to write
+     */
+    protected void write(Register register, int value) {
+        writeLong(register, value);
+    }
+    
+    /**
+     * Writes a value to the given register - only the Carry register holds 
+     * values which do not fit into a word
+     * @param register Register to write to
+     * @param value Value to write
+     */
+    protected void writeLong(Register register, long value) {
+        if(journal != null) {
+            journal.recordRegister(register, registerStore[register.ordinal()]);
+        }
+        
+        registerStore[register.ordinal()] = value;
+        
+        // Inform listeners
+        RegisterListener[] listeners = listenerArray;
+        if(listeners.length > 0) {
+            String text = format(register, value);
+            
+            for(RegisterListener listener : listeners) {
+                listener.registerWroteTo(this, register, text);
+            }
+        }
+    }
+    
+    /**
+     * Informs listeners of the value held by the given register as if it had
+     * been written - used after compiled code has run (Nothing is journaled)
+     * @param register Register to report
+     */
+    protected void fireRegisterChanged(Register register) {
+        RegisterListener[] listeners = listenerArray;
+        if(listeners.length > 0) {
+            String text = format(register, registerStore[register.ordinal()]);
+            
+            for(RegisterListener listener : listeners) {
+                listener.registerWroteTo(this, register, text);
+            }
+        }
+    }
+    
+    /**
+     * Returns the value stored in the given register in its display format
+     * @param register Register to read from
+     * @return value stored in the given register
+     */
+    protected String readFrom(Register register) {
+        return format(register, readLong(register));
+    }
+    
+    /**
+     * Writes a value, given in its display format, to the given register
      * @param register Register to write to
      * @param value Value to write
      */
     protected void writeTo(Register register, String value) {  
-        registerStore.put(register, value);
+        writeLong(register, parse(register, value));
+    }
+    
+    /**
+     * Returns the value of the given register in its display format 
+     * (No listeners are fired)
+     * @param register Register to get the value of
+     * @return value of the given register
+     */
+    public String getValue(Register register) {
+        return format(register, registerStore[register.ordinal()]);
+    }
+    
+    /**
+     * Returns the word stored in the given register (No listeners are fired)
+     * @param register Register to get the word of
+     * @return word stored in the given register
+     */
+    protected int getWord(Register register) {
+        return (int) registerStore[register.ordinal()];
+    }
+    
+    /**
+     * Returns the value stored in the given register, including the sign and
+     * all ten digits of the Carry register (No listeners are fired)
+     * @param register Register to get the value of
+     * @return value stored in the given register
+     */
+    protected long getLong(Register register) {
+        return registerStore[register.ordinal()];
+    }
+    
+    /**
+     * Returns the signed number held by a Carry register value
+     * @param carry Value of the Carry register
+     * @return carried digits, negated if they follow a sign
+     */
+    static long getCarryNumber(long carry) {
+        return (carry & CARRY_SIGN) != 0 ? -(carry & ~CARRY_SIGN) : carry;
+    }
+    
+    /**
+     * Sets the journal which records register writes
+     * @param journal execution journal (null to stop journaling)
+     */
+    protected void setJournal(ExecutionJournal journal) {
+        this.journal = journal;
+    }
+    
+    /**
+     * Copies the words of all the registers into the given array 
+     * (indexed by Register.ordinal()) - No listeners are fired
+     * @param snapshot Array to copy the registers into
+     */
+    protected void snapshot(long[] snapshot) {
+        System.arraycopy(registerStore, 0, snapshot, 0, registerStore.length);
+    }
+    
+    /**
+     * Writes the words in the given array (indexed by Register.ordinal()) to
+     * all the registers which hold a different word
+     * @param snapshot Words to restore
+     */
+    protected void restore(long[] snapshot) {
+        // Nothing to inform or journal - restore with a single copy
+        if(listenerArray.length == 0 && journal == null) {
+            System.arraycopy(snapshot, 0, registerStore, 0, registerStore.length);
+            return;
+        }
+        
+        Register[] registers = Register.values();
         
-        //Inform listeners
-        for(RegisterListener listener : getRegisterListeners()) {
-            listener.registerWroteTo(this, register, value);
+        for(int i = 0; i < registerStore.length; i++) {
+            if(registerStore[i] != snapshot[i]) {
+                writeLong(registers[i], snapshot[i]);
+            }
         }
     }
     
@@ -72,9 +232,7 @@ public class RegisterStore extends ComputerComponent {
      * Writes zeros to all the registers - No listeners are fired
      */
     protected void reset() {
-        for(Register register : Register.values()) {
-            registerStore.put(register, "000000");
-        }
+        Arrays.fill(registerStore, 0);
     }
     
     /**
@@ -82,7 +240,10 @@ public class RegisterStore extends ComputerComponent {
      * @param listener listener to add
      */
     public void addRegisterListener(RegisterListener listener) {
-        if(listener != null) listeners.add(listener);
+        if(listener != null) {
+            listeners.add(listener);
+            listenerArray = listeners.toArray(new RegisterListener[]{});
+        }
     };
     
     /**
@@ -90,7 +251,7 @@ public class RegisterStore extends ComputerComponent {
      * @return Array of Register Listeners
      */
     public RegisterListener[] getRegisterListeners() {
-        return listeners.toArray(new RegisterListener[]{});
+        return listenerArray.clone();
     }
     
     /**
@@ -99,10 +260,74 @@ public class RegisterStore extends ComputerComponent {
      */
     public void removeRegisterListener(RegisterListener listener) {
         listeners.remove(listener);
+        listenerArray = listeners.toArray(new RegisterListener[]{});
     }
-
+    
     /**
      * Method is a byproduct of implementation and should not be used
      */
     protected void invoke() {}
-}
\ No newline at end of file
+    
+    /**
+     * Returns the display format of a register word.  The Flag register is 
+     * shown as a 6 binary digit mask and the Carry register as its sign and 
+     * digits padded to 10 characters, all other registers are shown in decimal
+     * @param register Register the word belongs to
+     * @param value Word to format
+     * @return display format of the word
+     */
+    private static String format(Register register, long value) {
+        switch(register) {
+            case FLG :
+                return pad(Long.toBinaryString(value & 0x3F), 6);
+            case CAR :
+                // A sign with no digits after it is kept as the last character
+                if(value == CARRY_SIGN) {
+                    return pad("-", 10);
+                }
+                
+                return pad(Long.toString(getCarryNumber(value)), 10);
+            default :
+                return Long.toString(value);
+        }
+    }
+    
+    /**
+     * Returns the word represented by the display format of a register value
+     * @param register Register the value belongs to
+     * @param value Value to parse
+     * @return word represented by the value
+     */
+    private static long parse(Register register, String value) {
+        switch(register) {
+            case FLG :
+                return Integer.parseInt(value, 2);
+            case CAR :
+                // Leading zeros may come before the sign
+                int sign = value.indexOf('-');
+                if(sign < 0) {
+                    return Long.parseLong(value);
+                }
+                
+                String digits = value.substring(sign + 1);
+                return CARRY_SIGN | (digits.isEmpty() ? 0 : Long.parseLong(digits));
+            default :
+                return Integer.parseInt(value);
+        }
+    }
+    
+    /**
+     * Pads the given string with leading zeros
+     * @param value String to pad
+     * @param length Minimum length of the padded string
+     * @return Padded string
+     */
+    private static String pad(String value, int length) {
+        StringBuilder padded = new StringBuilder(value);
+        while(padded.length() < length) {
+            padded.insert(0, "0");
+        }
+        
+        return padded.toString();
+    }
+}
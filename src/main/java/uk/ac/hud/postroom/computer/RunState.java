@@ -0,0 +1,21 @@
+package uk.ac.hud.postroom.computer;
+
+/**
+ * Enumeration of the states the execution thread of a Post Room Computer can
+ * be in.  Changes of state are applied at instruction boundaries
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public enum RunState {
+    
+    /** Computer executes instructions at the current execution speed **/
+    RUNNING,
+    
+    /** Computer waits for a step request before executing the next instruction **/
+    PAUSED,
+    
+    /** Computer executes one instruction and then pauses **/
+    STEPPING,
+    
+    /** Computer is not executing a program **/
+    STOPPED;
+}
@@ -0,0 +1,100 @@
+package uk.ac.hud.postroom.computer;
+
+import java.util.function.*;
+
+/**
+ * Decode cache which also holds the threaded code translated from memory.  
+ * Each address holds a pre-bound node which executes the instruction at that 
+ * address and returns the address of the next instruction.  Writing to an 
+ * address discards its node, and any fused node which covers it, so the new
+ * word is translated when next executed.  Nodes are held in pages which are
+ * only allocated when an address in them is first translated
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ThreadedCodeCache extends DecodeCache {
+    
+    /** Maximum number of instructions fused into a single node **/
+    static final int MAX_FUSED = 3;
+    
+    // Translated instructions - paged by memory address
+    private PageTable<Page> pages;
+    
+    /**
+     * Constructs a new ThreadedCodeCache for a memory of the given size
+     * @param size Size of the memory being cached
+     */
+    public ThreadedCodeCache(int size) {
+        super(size);
+        
+        pages = new PageTable<Page>(size, Page::new);
+    }
+    
+    /**
+     * Returns the node translated from the given address
+     * @param address Memory address
+     * @return translated node or null if the address has not been translated
+     */
+    IntUnaryOperator getNode(int address) {
+        Page page = pages.get(address);
+        
+        return page != null ? page.nodes[address & PageTable.PAGE_MASK] : null;
+    }
+    
+    /**
+     * Returns the number of instructions executed by the node translated from
+     * the given address
+     * @param address Memory address which has a node
+     * @return number of instructions executed by the node
+     */
+    int getLength(int address) {
+        return pages.get(address).lengths[address & PageTable.PAGE_MASK];
+    }
+    
+    /**
+     * Caches the node translated from the given address
+     * @param address Memory address the node was translated from
+     * @param node translated node
+     * @param length number of instructions executed by the node
+     */
+    void putNode(int address, IntUnaryOperator node, int length) {
+        if(address >= 0 && address < pages.size()) {
+            Page page = pages.allocate(address);
+            
+            page.nodes[address & PageTable.PAGE_MASK] = node;
+            page.lengths[address & PageTable.PAGE_MASK] = length;
+        }
+    }
+    
+    /** @inheritDoc **/
+    @Override public void invalidate(int address) {
+        super.invalidate(address);
+        
+        // Fused nodes starting before the address also cover it
+        for(int i = Math.max(0, address - MAX_FUSED + 1); i <= address; i++) {
+            Page page = pages.get(i);
+            
+            if(page != null) {
+                page.nodes[i & PageTable.PAGE_MASK] = null;
+            }
+        }
+    }
+    
+    /** @inheritDoc **/
+    @Override public void clear() {
+        super.clear();
+        
+        pages.clear();
+    }
+    
+    /**
+     * Translated nodes of PageTable.PAGE_SIZE consecutive addresses
+     */
+    private static final class Page {
+        
+        // Translated instructions - indexed by memory address
+        final IntUnaryOperator[] nodes = new IntUnaryOperator[PageTable.PAGE_SIZE];
+        
+        // Number of instructions executed by each node - indexed by memory address
+        final int[] lengths = new int[PageTable.PAGE_SIZE];
+    }
+}
@@ -0,0 +1,294 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.function.*;
+
+/**
+ * Absolute Address Post Room Computer which translates each instruction word 
+ * into a pre-bound node ("threaded code") that executes the instruction and 
+ * returns the address of the next instruction.  Threaded code is only used 
+ * when executing at FULL speed without breakpoints - all other execution is 
+ * interpreted.  Threaded code does not read or write the micro-registers 
+ * (IR, MAR, MDR, XA, XV...) or inform memory listeners
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ThreadedCodeComputer extends AbsoluteAddressComputer {
+    
+    // Maximum number of nodes executed before checking whether to stop / pause
+    private static final int BATCH_SIZE = 1024;
+    
+    // Decode cache of memory which also holds the translated nodes
+    private ThreadedCodeCache codeCache;
+    
+    // Number of instructions executed by the node last returned by translate(int)
+    private int translatedLength;
+    
+    /** 
+     * Constructs a new Threaded Code Absolute 2-Address Post Room Computer with the default memory size
+     */
+    public ThreadedCodeComputer() {
+        this(DEFAULT_MEMORY_SIZE);
+    }
+    
+    /** 
+     * Constructs a new Threaded Code Absolute 2-Address Post Room Computer
+     * @param memorySize Number of words of memory
+     */
+    public ThreadedCodeComputer(int memorySize) {
+        super(memorySize);
+        
+        codeCache = new ThreadedCodeCache(memory.size());
+        
+        memory.setDecodeCache(codeCache);
+    }
+    
+    /** @inheritDoc **/
+    @Override protected void executeInstruction() {
+        if(canCompile()) {
+            int pc = registerStore.read(Register.PC);
+            IntUnaryOperator node = getNode(pc);
+            
+            // Nodes which would exceed the instruction or memory write limits are interpreted
+            if(node != null && hasInstructionBudget(codeCache.getLength(pc)) && 
+                    hasMemoryWriteBudget(codeCache.getLength(pc))) {
+                // Follow the thread until an instruction must be interpreted
+                for(int i = 0; i < BATCH_SIZE && node != null && isRunning(); i++) {
+                    int length = codeCache.getLength(pc);
+                    
+                    // Each instruction writes at most one word
+                    if(!hasInstructionBudget(length) || !hasMemoryWriteBudget(length)) {
+                        break;
+                    }
+                    
+                    retireInstructions(length);
+                    
+                    pc = node.applyAsInt(pc);
+                    node = getNode(pc);
+                }
+                
+                setPC(pc);
+                compiledBatchExecuted();
+                return;
+            }
+        }
+        
+        // Interpret the next instruction
+        super.executeInstruction();
+    }
+    
+    /**
+     * Returns the node for the given address, translating it if required
+     * @param address Memory address
+     * @return translated node or null if the address must be interpreted
+     */
+    private IntUnaryOperator getNode(int address) {
+        IntUnaryOperator node = codeCache.getNode(address);
+        
+        if(node == null && address >= 0 && address < memory.size()) {
+            node = translate(address);
+            
+            codeCache.putNode(address, node, translatedLength);
+        }
+        
+        return node;
+    }
+    
+    /**
+     * Translates the instruction at the given address into a node
+     * @param address Memory address
+     * @return translated node or null if the instruction is malformed
+     */
+    private IntUnaryOperator translate(int address) {
+        DecodedInstruction instruction = decode(address);
+        
+        if(instruction == null) {
+            // Malformed - the interpreter reports the error
+            return null;
+        }
+        
+        // Common instruction sequences are executed as a single node
+        IntUnaryOperator fused = fuse(address, instruction);
+        
+        if(fused != null) {
+            return fused;
+        }
+        
+        final OpCode opCode = instruction.getOpCode();
+        final int x = instruction.getOperand1().getField();
+        final int y = instruction.getOperand2().getField();
+        
+        translatedLength = 1;
+        
+        switch(opCode) {
+            case HLT :
+                return pc -> {
+                    forceStop();
+                    return pc + 1;
+                };
+            
+            case INP :
+                return pc -> {
+                    memory.write(x, readInput());
+                    return pc + 1;
+                };
+            
+            case OUT :
+                return pc -> {
+                    writeOutput(memory.read(x));
+                    return pc + 1;
+                };
+            
+            case JMP :
+                final Condition condition = instruction.getCondition();
+                
+                return pc -> conditionMatches(condition) ? y : pc + 1;
+            
+            default :
+                // Move, Mask, Addition, Substraction, Shift, and Move Effective Address
+                return pc -> {
+                    memory.write(x, alu.calculate(opCode, memory.read(x), memory.read(y), y, true));
+                    return pc + 1;
+                };
+        }
+    }
+    
+    /**
+     * Translates the instruction at the given address and the instructions
+     * which follow it into a single "superinstruction" node.  Recognised 
+     * sequences are ALU + JMP, ALU + ALU + JMP and INP + ALU.  Sequences which
+     * write to their own instruction words are not fused
+     * @param address Memory address of the first instruction
+     * @param first Decoded first instruction
+     * @return fused node or null if the sequence is not recognised
+     */
+    private IntUnaryOperator fuse(int address, DecodedInstruction first) {
+        if(!isFusable(first, address)) {
+            return null;
+        }
+        
+        DecodedInstruction second = decode(address + 1);
+        
+        if(second == null) {
+            return null;
+        }
+        
+        final OpCode opCode1 = first.getOpCode();
+        final int x1 = first.getOperand1().getField();
+        final int y1 = first.getOperand2().getField();
+        
+        final OpCode opCode2 = second.getOpCode();
+        final int x2 = second.getOperand1().getField();
+        final int y2 = second.getOperand2().getField();
+        
+        if(opCode1 == OpCode.INP) {
+            if(!isALU(opCode2) || !isFusable(second, address)) {
+                return null;
+            }
+            
+            // INP + ALU
+            translatedLength = 2;
+            
+            return pc -> {
+                memory.write(x1, readInput());
+                
+                // Invalid input stops the computer
+                if(!isRunning()) {
+                    return pc + 1;
+                }
+                
+                memory.write(x2, alu.calculate(opCode2, memory.read(x2), memory.read(y2), y2, true));
+                return pc + 2;
+            };
+        }
+        
+        if(opCode2 == OpCode.JMP) {
+            final Condition condition2 = second.getCondition();
+            
+            // ALU + JMP
+            translatedLength = 2;
+            
+            return pc -> {
+                memory.write(x1, alu.calculate(opCode1, memory.read(x1), memory.read(y1), y1, true));
+                return conditionMatches(condition2) ? y2 : pc + 2;
+            };
+        }
+        
+        DecodedInstruction third = decode(address + 2);
+        
+        if(!isALU(opCode2) || !isFusable(second, address) || 
+                third == null || third.getOpCode() != OpCode.JMP) {
+            return null;
+        }
+        
+        final Condition condition3 = third.getCondition();
+        final int y3 = third.getOperand2().getField();
+        
+        // ALU + ALU + JMP
+        translatedLength = 3;
+        
+        return pc -> {
+            memory.write(x1, alu.calculate(opCode1, memory.read(x1), memory.read(y1), y1, true));
+            memory.write(x2, alu.calculate(opCode2, memory.read(x2), memory.read(y2), y2, true));
+            return conditionMatches(condition3) ? y3 : pc + 3;
+        };
+    }
+    
+    /**
+     * Returns whether the given instruction can start or continue a fused 
+     * sequence starting at the given address
+     * @param instruction Decoded instruction
+     * @param address Memory address of the first instruction in the sequence
+     * @return true if the instruction is an ALU or INP instruction which does
+     * not write to the sequence or to read-only code
+     */
+    private boolean isFusable(DecodedInstruction instruction, int address) {
+        OpCode opCode = instruction.getOpCode();
+        int x = instruction.getOperand1().getField();
+        
+        return (opCode == OpCode.INP || isALU(opCode)) && 
+                (x < address || x >= address + ThreadedCodeCache.MAX_FUSED) && !memory.isReadOnly(x);
+    }
+    
+    /**
+     * Returns whether the given OpCode is handled by the ALU
+     * @param opCode OpCode to test
+     * @return true if the OpCode is MOV, MSK, ADD, SUB, MEA or SHF
+     */
+    private boolean isALU(OpCode opCode) {
+        return opCode != OpCode.HLT && opCode != OpCode.INP && 
+                opCode != OpCode.OUT && opCode != OpCode.JMP;
+    }
+    
+    /**
+     * Decodes the instruction at the given address using the decode cache
+     * @param address Memory address
+     * @return decoded instruction or null if the instruction is malformed or 
+     * has operands which fall outside memory
+     */
+    private DecodedInstruction decode(int address) {
+        if(address < 0 || address >= memory.size()) {
+            return null;
+        }
+        
+        DecodedInstruction instruction = codeCache.get(address);
+        
+        if(instruction == null) {
+            try {
+                instruction = new DecodedInstruction(memory.read(address), getInstructionFormat());
+            }catch (IllegalArgumentException e) {
+                return null;
+            }
+            
+            codeCache.put(address, instruction);
+        }
+        
+        // Operands which fall outside memory are left to the interpreter to report
+        if(instruction.getOperand1().getField() >= memory.size() ||
+                instruction.getOperand2().getField() >= memory.size()) {
+            return null;
+        }
+        
+        return instruction;
+    }
+}
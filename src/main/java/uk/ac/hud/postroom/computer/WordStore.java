@@ -0,0 +1,61 @@
+package uk.ac.hud.postroom.computer;
+
+/**
+ * Storage of the words held by a Post Room Computer Memory component.  
+ * Memory delegates to a WordStore so that the way words are stored can be 
+ * changed without changing the rest of the computer
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public interface WordStore {
+    
+    /**
+     * Returns the number of words which can be stored
+     * @return size of the store
+     */
+    public int size();
+    
+    /**
+     * Returns the word at the given address
+     * @param address Address to read from
+     * @return word at the address
+     */
+    public int read(int address);
+    
+    /**
+     * Stores a word at the given address
+     * @param address Address to write to
+     * @param value Word to write
+     */
+    public void write(int address, int value);
+    
+    /**
+     * Stores the given words at consecutive addresses
+     * @param address Address of the first word
+     * @param words Words to store
+     */
+    public void load(int address, int[] words);
+    
+    /**
+     * Writes zeros to all addresses - called when the computer is reset.
+     * Stores which persist across executions may keep their words
+     */
+    public void clear();
+    
+    /**
+     * Copies all the words into the given array (indexed by address)
+     * @param words Array of at least size() words
+     */
+    public void copyTo(int[] words);
+    
+    /**
+     * Replaces all the words with the words in the given array
+     * @param words Array of at least size() words indexed by address
+     */
+    public void copyFrom(int[] words);
+    
+    /**
+     * Returns an independent store holding the same words as this store
+     * @return forked store
+     */
+    public WordStore fork();
+}
@@ -21,4 +21,7 @@ public abstract class ComputerAdapter implements ComputerListener {
     
     /** @inheritDoc **/
     public void computerError(Computer computer, Throwable error){}
+    
+    /** @inheritDoc **/
+    public void limitExceeded(Computer computer, ExecutionLimit limit){}
 }
\ No newline at end of file
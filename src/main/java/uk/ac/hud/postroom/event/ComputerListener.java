@@ -33,4 +33,12 @@ public interface ComputerListener {
      * @param error Error which occured
      */
     public void computerError(Computer computer, Throwable error);
+    
+    /**
+     * Called when the computer stops execution because a limit was exceeded.
+     * computerStopped(Computer) is called afterwards
+     * @param computer Computer which exceeded the limit
+     * @param limit Limit which was exceeded
+     */
+    public void limitExceeded(Computer computer, ExecutionLimit limit);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package uk.ac.hud.postroom.event;
+
+import uk.ac.hud.postroom.computer.*;
+
+/**
+ * Listener for executed instructions.  Unlike register, memory and decoder
+ * events, which are fired for every micro-operation, an InstructionListener
+ * is informed once per instruction
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public interface InstructionListener {
+    
+    /**
+     * Called after the computer has executed an instruction
+     * @param computer Computer which executed the instruction
+     * @param instruction Summary of the instruction - the object is reused
+     * for the next instruction so must not be kept once this method returns
+     */
+    public void instructionRetired(Computer computer, InstructionRetired instruction);
+}
@@ -14,6 +14,9 @@ public abstract class MemoryAdapter implements MemoryListener {
     /** @inheritDoc **/
     public void memoryWroteTo(Memory memory, int address, String value) {}
     
+    /** @inheritDoc **/
+    public void memoryRangeWritten(Memory memory, int address, int length) {}
+    
     /** @inheritDoc **/
     public void memoryError(Memory memory, Throwable error) {}
 }
\ No newline at end of file
@@ -24,6 +24,15 @@ public interface MemoryListener {
      */
     public void memoryWroteTo(Memory memory, int address, String value);
     
+    /**
+     * Called when a range of addresses was wrote to in a single operation 
+     * (e.g. loading a program or restoring a snapshot)
+     * @param memory The memory which was wrote to
+     * @param address The first address which was wrote to
+     * @param length The number of addresses which were wrote to
+     */
+    public void memoryRangeWritten(Memory memory, int address, int length);
+    
     /**
      * Called when an error occurs when memory is accessed (most likely due to
      * and out of bounds exception when attempting to access an invalid address) 
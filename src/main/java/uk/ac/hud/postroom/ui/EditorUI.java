@@ -222,7 +222,8 @@ public class EditorUI extends JPanel {
                         ui.getTabbedPane().setSelectedIndex(1);
 
                         ui.getComputer().setInstructions(assembler.getInstructions());
-                        ui.getComputer().setBreakPoints(selectedPanel.getBreakPoints());
+                        ui.getComputer().setBreakPointLines(
+                                selectedPanel.getSourceFile(), selectedPanel.getBreakPoints());
                         ui.getComputer().reset();
                     }
                 }
@@ -52,14 +52,16 @@ public class SetupDialog extends JDialog {
      */
     private void buildCenterPanel() {
         // Construct components
-        JPanel panel = new JPanel(new GridLayout(1, 3, 5, 5));
+        JPanel panel = new JPanel(new GridLayout(1, 4, 5, 5));
             JButton absoluteAddress = new SetupMenuButton("Start Absolute<br>Address Machine");
+            JButton threadedAddress = new SetupMenuButton("Start Threaded Absolute<br>Address Machine");
             JButton registerAddress = new SetupMenuButton("Start Register<br>Address Machine");
             JButton exit = new SetupMenuButton("Exit");
         
         // add components to dialog
         this.add(panel, BorderLayout.CENTER);
             panel.add(absoluteAddress);
+            panel.add(threadedAddress);
             panel.add(registerAddress);
             panel.add(exit);
         
@@ -77,6 +79,19 @@ public class SetupDialog extends JDialog {
             }
         });
         
+        threadedAddress.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                Project project = getProjectDirectory();
+                if(project != null) {
+                    dispose();
+                    new PostRoomUI(
+                        project,
+                        new ThreadedCodeComputer(), 
+                        new AbsoluteAddressAssembler()).setVisible(true);
+                }
+            }
+        });
+        
         registerAddress.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 Project project = getProjectDirectory();
@@ -48,26 +48,14 @@ public class ComputerControlPanel extends JPanel {
         speedSlider.addChangeListener(new ChangeListener() {
             public void stateChanged(ChangeEvent e) {
                 if(!speedSlider.getValueIsAdjusting()) {
-                    int value = speedSlider.getValue();
+                    ExecutionSpeed speed = speedSlider.getExecutionSpeed();
                     
-                    step.setEnabled(value == 0);
+                    step.setEnabled(speed == ExecutionSpeed.STEP);
                     
-                    switch(value) {
-                        case 0 : 
-                            computer.setExecutionSpeed(ExecutionSpeed.STEP); 
-                            break;
-                        case 1 : 
-                            computer.setExecutionSpeed(ExecutionSpeed.SLOW); 
-                            break;
-                        case 2 : 
-                            computer.setExecutionSpeed(ExecutionSpeed.MEDIUM); 
-                            break;
-                        case 3 : 
-                            computer.setExecutionSpeed(ExecutionSpeed.FAST); 
-                            break;
-                        case 4 :
-                            computer.setExecutionSpeed(ExecutionSpeed.FULL); 
-                            break;
+                    if(speed == ExecutionSpeed.RATE) {
+                        computer.setInstructionRate(speedSlider.getInstructionRate());
+                    }else {
+                        computer.setExecutionSpeed(speed);
                     }
                 }
             }
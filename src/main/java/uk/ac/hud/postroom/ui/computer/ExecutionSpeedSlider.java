@@ -1,19 +1,38 @@
 package uk.ac.hud.postroom.ui.computer;
 
+import uk.ac.hud.postroom.computer.*;
+
 import javax.swing.*;
 import java.util.*;
 
 /**
- * Slider to display different available speed settings for the computer
+ * Slider to display different available speed settings for the computer.
+ * Between Fast and Full the slider selects an instruction rate on a 
+ * logarithmic scale from 10 to 1,000,000 instructions per second
  * @author Richard Walton (c0410542@hud.ac.uk)
  */
 public class ExecutionSpeedSlider extends JSlider {
     
+    // Slider value of the lowest instruction rate
+    private static final int FIRST_RATE = 4;
+    
+    // Slider positions per factor of 10 of instruction rate
+    private static final int STEPS_PER_DECADE = 4;
+    
+    // Lowest instruction rate = 10 ^ FIRST_DECADE
+    private static final int FIRST_DECADE = 1;
+    
+    // Number of factors of 10 covered by instruction rates (10 - 1,000,000)
+    private static final int DECADES = 5;
+    
+    // Slider value of FULL speed
+    private static final int FULL = FIRST_RATE + DECADES * STEPS_PER_DECADE + 1;
+    
     /**
      * Constructs a new ExecutionSpeedSlider
      */
     public ExecutionSpeedSlider() {
-        super(0, 4);
+        super(0, FULL, 2);
         
         // Labels to be used at different points
         Hashtable<Integer, JLabel> labelTable = new Hashtable<Integer, JLabel>();
@@ -21,13 +40,50 @@ public class ExecutionSpeedSlider extends JSlider {
             labelTable.put(1, new JLabel("Slow"));
             labelTable.put(2, new JLabel("Medium"));
             labelTable.put(3, new JLabel("Fast"));
-            labelTable.put(4, new JLabel("Full"));
+            labelTable.put(FIRST_RATE, new JLabel("10/s"));
+            labelTable.put(FIRST_RATE + 2 * STEPS_PER_DECADE, new JLabel("1k/s"));
+            labelTable.put(FIRST_RATE + 4 * STEPS_PER_DECADE, new JLabel("100k/s"));
+            labelTable.put(FULL, new JLabel("Full"));
             
         // Customize the slider display
         setLabelTable(labelTable);
         setPaintLabels(true);
         setPaintTicks(true);
-        setMajorTickSpacing(1);
+        setMajorTickSpacing(STEPS_PER_DECADE);
+        setMinorTickSpacing(1);
         setSnapToTicks(true);   
     }
-}
\ No newline at end of file
+    
+    /**
+     * Returns the execution speed selected by the slider
+     * @return selected execution speed
+     */
+    public ExecutionSpeed getExecutionSpeed() {
+        int value = getValue();
+        
+        switch(value) {
+            case 0 : 
+                return ExecutionSpeed.STEP;
+            case 1 : 
+                return ExecutionSpeed.SLOW;
+            case 2 : 
+                return ExecutionSpeed.MEDIUM;
+            case 3 : 
+                return ExecutionSpeed.FAST;
+            case FULL :
+                return ExecutionSpeed.FULL;
+            default :
+                return ExecutionSpeed.RATE;
+        }
+    }
+    
+    /**
+     * Returns the instruction rate selected by the slider
+     * @return instructions per second (only valid at RATE speed)
+     */
+    public int getInstructionRate() {
+        double decades = FIRST_DECADE + (getValue() - FIRST_RATE) / (double) STEPS_PER_DECADE;
+        
+        return (int) Math.round(Math.pow(10, decades));
+    }
+}
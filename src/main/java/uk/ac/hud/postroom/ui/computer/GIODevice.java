@@ -5,6 +5,7 @@ import uk.ac.hud.postroom.event.*;
 
 import uk.ac.hud.postroom.ui.*;
 import javax.swing.*;
+import java.util.concurrent.*;
 
 /**
  * GUI component which implements the Post Room Computer IODevice interface
@@ -14,6 +15,9 @@ public class GIODevice extends JTextArea implements IODevice {
 
           // The ioModule of the computer
           private IOModule ioModule;
+          
+          // Input prompt being shown (null if none) - only used on the event dispatch thread
+          private JDialog inputDialog;
 
           /**
            * Constructs a new G(raphical ) IODevice and redirects IO from the given ioModule
@@ -44,6 +48,10 @@ public class GIODevice extends JTextArea implements IODevice {
                               public void computerError(Computer computer, Throwable error) {
                                         showOutput("Error: " + error.getMessage(), false);
                               }
+
+                              public void limitExceeded(Computer computer, ExecutionLimit limit) {
+                                        showOutput("Error: " + limit.getMessage(), false);
+                              }
                     });
 
                     setEditable(false);
@@ -51,7 +59,16 @@ public class GIODevice extends JTextArea implements IODevice {
 
           /** @inheritDoc **/
           public String requestInput() {
-                    String input = JOptionPane.showInputDialog(this, "Input Reqested");
+                    String input;
+                    
+                    try {
+                              input = promptForInput();
+                    } catch (InterruptedException e) {
+                              // The computer was stopped while waiting - the input is not used
+                              Thread.currentThread().interrupt();
+                              return "0000000";
+                    }
+                    
                     if (input == null) {
                               // User cancelled input - stop the computer
                               ioModule.getComputer().forceStop();
@@ -73,6 +90,54 @@ public class GIODevice extends JTextArea implements IODevice {
                     }
           }
 
+          /**
+           * Shows the input prompt on the event dispatch thread and waits for
+           * the user to close it
+           * @return Input entered or null if the user cancelled input
+           * @throws InterruptedException if interrupted while waiting
+           */
+          private String promptForInput() throws InterruptedException {
+                    FutureTask<String> prompt = new FutureTask<String>(new Callable<String>() {
+                              public String call() {
+                                        JOptionPane pane = new JOptionPane("Input Reqested", 
+                                                  JOptionPane.QUESTION_MESSAGE, JOptionPane.OK_CANCEL_OPTION);
+                                        pane.setWantsInput(true);
+                                        
+                                        inputDialog = pane.createDialog(GIODevice.this, "Input");
+                                        pane.selectInitialValue();
+                                        
+                                        // Modal - returns once the prompt is closed
+                                        inputDialog.setVisible(true);
+                                        inputDialog.dispose();
+                                        inputDialog = null;
+                                        
+                                        Object input = pane.getInputValue();
+                                        return input == JOptionPane.UNINITIALIZED_VALUE ? null : (String) input;
+                              }
+                    });
+                    
+                    SwingUtilities.invokeLater(prompt);
+                    
+                    try {
+                              return prompt.get();
+                    } catch (InterruptedException e) {
+                              // Close the prompt (or don't show it)
+                              prompt.cancel(false);
+                              
+                              SwingUtilities.invokeLater(new Runnable() {
+                                        public void run() {
+                                                  if (inputDialog != null) {
+                                                            inputDialog.setVisible(false);
+                                                  }
+                                        }
+                              });
+                              
+                              throw e;
+                    } catch (ExecutionException e) {
+                              throw new IllegalStateException("Unable to request input", e.getCause());
+                    }
+          }
+
           /** @inheritDoc **/
           public void showOutput(String output) {
                     showOutput(output, true);
@@ -60,6 +60,13 @@ public class MemoryDisplayTableModel extends SimpleTableModel {
                 // inform listeners of data change
                 fireTableRowsUpdated(address, address);
             }
+            
+            public void memoryRangeWritten(Memory memory, int address, int length) {
+                // inform listeners of the whole range at once
+                if(length > 0) {
+                    fireTableRowsUpdated(address, address + length - 1);
+                }
+            }
         });
         
         // Reload memory on computer reset
@@ -108,7 +115,7 @@ public class MemoryDisplayTableModel extends SimpleTableModel {
             case 0 : return row;
             case 1 : 
                 // Get memory value
-                int memoryValue = Integer.parseInt(memory.get(row));
+                int memoryValue = memory.read(row);
                 switch(modelType) {
                     case ACSII :
                         // Return ascii character if value is within ascii range
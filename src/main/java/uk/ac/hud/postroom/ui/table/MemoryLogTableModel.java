@@ -25,6 +25,13 @@ public class MemoryLogTableModel extends ComputerLogTableModel  {
                 fireTableRowsInserted(getRowCount() - 1, getRowCount() - 1);
             }
             
+            public void memoryRangeWritten(Memory memory, int address, int length) {
+                dataModel.add(new String[] {"Write", address + "-" + (address + length - 1), length + " words" });
+                
+                // inform listeners of new data
+                fireTableRowsInserted(getRowCount() - 1, getRowCount() - 1);
+            }
+            
             public void memoryReadFrom(Memory memory, int address, String value) {
                 dataModel.add(new String[] {"Read", Integer.toString(address), value });
                 
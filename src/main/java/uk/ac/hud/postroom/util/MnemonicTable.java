@@ -0,0 +1,109 @@
+package uk.ac.hud.postroom.util;
+
+import java.util.*;
+
+/**
+ * Case insensitive lookup table of constants keyed by mnemonic.  The table
+ * size and hash multiplier are chosen when the table is built so that no two
+ * mnemonics share a slot (a perfect hash) - each lookup hashes the mnemonic
+ * once and compares it against a single candidate without allocating
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public final class MnemonicTable<T> {
+    
+    // Largest table tried before giving up
+    private static final int MAX_SIZE = 1 << 16;
+    
+    // Mnemonic held in each slot (null if the slot is empty)
+    private String[] mnemonics;
+    
+    // Constant held in each slot
+    private Object[] constants;
+    
+    // Multiplier of the hash function
+    private int multiplier;
+    
+    // Table size - 1 (table sizes are powers of two)
+    private int mask;
+    
+    /**
+     * Builds a table holding the given constants
+     * @param mnemonics Mnemonic of each constant
+     * @param constants Constants - in the same order as the mnemonics
+     * @throws IllegalArgumentException if two mnemonics only differ by case
+     */
+    public MnemonicTable(String[] mnemonics, T[] constants) {
+        Set<String> unique = new HashSet<String>();
+        for(String mnemonic : mnemonics) {
+            if(!unique.add(mnemonic.toUpperCase())) {
+                throw new IllegalArgumentException("Duplicate mnemonic " + mnemonic);
+            }
+        }
+        
+        // Search for the smallest table (then multiplier) without collisions
+        for(int size = Integer.highestOneBit(Math.max(1, mnemonics.length * 2 - 1)) * 2; size <= MAX_SIZE; size *= 2) {
+            for(int multiplier = 31; multiplier < 31 + 2 * size; multiplier += 2) {
+                if(build(mnemonics, constants, size, multiplier)) {
+                    return;
+                }
+            }
+        }
+        
+        throw new IllegalArgumentException("Unable to build a mnemonic table");
+    }
+    
+    /**
+     * Tries to place every constant in a table of the given size
+     * @param mnemonics Mnemonic of each constant
+     * @param constants Constants
+     * @param size Table size
+     * @param multiplier Hash multiplier
+     * @return true if no two mnemonics share a slot
+     */
+    private boolean build(String[] mnemonics, T[] constants, int size, int multiplier) {
+        this.mnemonics = new String[size];
+        this.constants = new Object[size];
+        this.multiplier = multiplier;
+        this.mask = size - 1;
+        
+        for(int i = 0; i < mnemonics.length; i++) {
+            int slot = slot(mnemonics[i]);
+            
+            if(this.mnemonics[slot] != null) {
+                return false;
+            }
+            
+            this.mnemonics[slot] = mnemonics[i];
+            this.constants[slot] = constants[i];
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Returns the slot of the given mnemonic
+     * @param mnemonic Mnemonic to hash
+     * @return slot index
+     */
+    private int slot(String mnemonic) {
+        int hash = 0;
+        
+        for(int i = 0; i < mnemonic.length(); i++) {
+            hash = hash * multiplier + Character.toUpperCase(mnemonic.charAt(i));
+        }
+        
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+    
+    /**
+     * Returns the constant with the given mnemonic (ignoring case)
+     * @param mnemonic Mnemonic to find
+     * @return matching constant or null if no constant has the mnemonic
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String mnemonic) {
+        int slot = slot(mnemonic);
+        
+        return mnemonic.equalsIgnoreCase(mnemonics[slot]) ? (T) constants[slot] : null;
+    }
+}
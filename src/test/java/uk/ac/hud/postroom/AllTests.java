@@ -0,0 +1,26 @@
+package uk.ac.hud.postroom;
+
+import uk.ac.hud.postroom.computer.*;
+
+/**
+ * Runs all the checks of the Post Room Computer.  Each check throws an 
+ * AssertionError on failure so the build stops at the first failing check
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class AllTests {
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     * @throws Exception if a check can not be run
+     */
+    public static void main(String[] arguments) throws Exception {
+        new ArithmeticLogicUnitTest().run();
+        new SparseMemoryTest().run();
+        new ExecutionJournalTest().run();
+        new MappedWordStoreTest().run();
+        new ThreadFactoryTest().run();
+        
+        System.out.println("All checks passed");
+    }
+}
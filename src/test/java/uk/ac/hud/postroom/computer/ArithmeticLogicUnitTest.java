@@ -0,0 +1,307 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+
+/**
+ * Checks that the numeric operations of the ArithmeticLogicUnit give the
+ * same results, errors, CAR and FLG registers as the original string
+ * implementation for boundary values and for random operands of every 
+ * opcode
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ArithmeticLogicUnitTest {
+    
+    // Word values at the boundaries of the digit / sign handling
+    private static final int[] VALUES = {
+        0, 1, -1, 9, -9, 10, -10, 11, -11, 99, -99, 100, -100,
+        123456789, -123456789, 999999999, -999999999, 1000000000, -1000000000,
+        1234567890, -1234567890, 1999999999, -1999999999,
+        Integer.MAX_VALUE, -Integer.MAX_VALUE, Integer.MIN_VALUE
+    };
+    
+    // Value the CAR register holds before each operation
+    private static final String CARRY = "0000000123";
+    
+    // Number of random operand sets checked against every opcode
+    private static final int RANDOM_CHECKS = 20000;
+    
+    // Largest 7 and 9 digit words
+    private static final int SEVEN_DIGITS = 9999999;
+    private static final int NINE_DIGITS = 999999999;
+    
+    // Places after which the string SHF no longer changes the value or carry
+    private static final int SHIFT_LIMIT = 32;
+    
+    // CAR register after the last string SHF
+    private String carry;
+    
+    // Flag bits of the string implementation - kept between operations as 
+    // the original Flag was
+    private boolean memory;
+    private boolean carrySet;
+    private boolean negative;
+    private boolean zero;
+    
+    // FLG register of the string implementation - only written when the 
+    // result is a valid word
+    private String flag = "000000";
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     */
+    public static void main(String[] arguments) {
+        new ArithmeticLogicUnitTest().run();
+    }
+    
+    /**
+     * Compares MSK for every pair of boundary values and SHF of every
+     * boundary value by every amount up to 25 places (and past the width of
+     * the CAR register), then every opcode for random operands
+     */
+    public void run() {
+        AbsoluteAddressComputer computer = new AbsoluteAddressComputer();
+        List<String> failures = new ArrayList<String>();
+        
+        List<Integer> shifts = new ArrayList<Integer>();
+        for(int shift = -25; shift <= 25; shift++) {
+            shifts.add(shift);
+        }
+        shifts.addAll(Arrays.asList(-300, -100, -31, 31, 100, 300));
+        
+        for(int x : VALUES) {
+            for(int y : VALUES) {
+                check(computer, OpCode.MSK, x, y, failures);
+            }
+            
+            for(int y : shifts) {
+                check(computer, OpCode.SHF, x, y, failures);
+            }
+        }
+        
+        Random random = new Random(21);
+        for(int i = 0; i < RANDOM_CHECKS; i++) {
+            int x = operand(random);
+            int y = operand(random);
+            int shift = random.nextBoolean() ? random.nextInt(2 * SHIFT_LIMIT + 1) - SHIFT_LIMIT : operand(random);
+            int yAddress = random.nextBoolean() ? random.nextInt() : Math.abs(operand(random));
+            boolean toMemory = random.nextBoolean();
+            
+            for(OpCode opCode : OpCode.values()) {
+                check(computer, opCode, x, opCode == OpCode.SHF ? shift : y, yAddress, toMemory, failures);
+            }
+        }
+        
+        if(!failures.isEmpty()) {
+            throw new AssertionError(failures.size() + " ALU mismatches, first: " + failures.get(0));
+        }
+    }
+    
+    /**
+     * Returns a random operand - a 7 digit word, a 9 digit word, a boundary 
+     * value or any int
+     * @param random Source of the operand
+     * @return operand
+     */
+    private static int operand(Random random) {
+        switch(random.nextInt(4)) {
+            case 0 :
+                return random.nextInt(2 * SEVEN_DIGITS + 1) - SEVEN_DIGITS;
+            case 1 :
+                return random.nextInt(2 * NINE_DIGITS + 1) - NINE_DIGITS;
+            case 2 :
+                return VALUES[random.nextInt(VALUES.length)];
+            default :
+                return random.nextInt();
+        }
+    }
+    
+    /**
+     * Compares a single operation storing to memory against the string 
+     * implementation
+     * @param computer Computer whose ALU is checked
+     * @param opCode MSK or SHF
+     * @param x First operand
+     * @param y Second operand
+     * @param failures List to add a description of any mismatch to
+     */
+    private void check(AbstractComputer computer, OpCode opCode, int x, int y, List<String> failures) {
+        check(computer, opCode, x, y, 0, true, failures);
+    }
+    
+    /**
+     * Compares a single operation against the string implementation
+     * @param computer Computer whose ALU is checked
+     * @param opCode Operation to perform
+     * @param x First operand
+     * @param y Second operand
+     * @param yAddress Address of the second operand
+     * @param toMemory Whether the result is stored in memory
+     * @param failures List to add a description of any mismatch to
+     */
+    private void check(AbstractComputer computer, OpCode opCode, int x, int y, int yAddress, 
+            boolean toMemory, List<String> failures) {
+        computer.registerStore.writeTo(Register.CAR, CARRY);
+        carry = CARRY;
+        
+        String actual;
+        try {
+            actual = Integer.toString(computer.alu.calculate(opCode, x, y, yAddress, toMemory));
+        }catch (NumberFormatException e) {
+            actual = e.getMessage();
+        }
+        
+        String expected;
+        try {
+            expected = calculate(opCode, Integer.toString(x), Integer.toString(y), 
+                    Integer.toString(yAddress), toMemory ? "0" : "1");
+        }catch (NumberFormatException e) {
+            expected = e.getMessage();
+        }
+        
+        String actualCarry = computer.registerStore.getValue(Register.CAR);
+        String actualFlag = computer.registerStore.getValue(Register.FLG);
+        
+        if(!actual.equals(expected) || !actualCarry.equals(carry) || !actualFlag.equals(flag)) {
+            failures.add(opCode + " " + x + " " + y + " " + yAddress + " " + toMemory + 
+                    " gave " + actual + " (CAR " + actualCarry + ", FLG " + actualFlag + 
+                    "), expected " + expected + " (CAR " + carry + ", FLG " + flag + ")");
+        }
+    }
+    
+    /**
+     * Original string implementation of the ALU - the result is returned 
+     * rather than written to the ZV register
+     * @param opCode Operation to perform
+     * @param xValue Value of the first operand
+     * @param yValue Value of the second operand
+     * @param yAddress Address of the second operand
+     * @param zType Address type of the result (0 for memory)
+     * @return result of the operation
+     * @throws NumberFormatException if the result is not a valid word
+     */
+    private String calculate(OpCode opCode, String xValue, String yValue, String yAddress, String zType) {
+        String result = "0";
+        
+        switch(opCode) {
+            case MSK :
+                result = doMSK(xValue, yValue);
+                break;
+                
+            case MOV :
+                result = yValue;
+                break;
+                
+            case ADD :
+                result = Integer.toString(Integer.parseInt(xValue) + Integer.parseInt(yValue));
+                break;
+                
+            case SUB :
+                result = Integer.toString(Integer.parseInt(xValue) - Integer.parseInt(yValue));
+                break;
+                
+            case MEA :
+                result = yAddress;
+                break;
+                
+            case SHF :
+                result = doSHF(xValue, yValue);
+                break;
+        }
+        
+        int intResult = Integer.parseInt(result);
+        negative = intResult < 0;
+        zero = intResult == 0;
+        memory = zType.equals("0");
+        
+        flag = getMask();
+        
+        return Integer.toString(intResult);
+    }
+    
+    /**
+     * Original 6 binary digit representation of the flag - the ALU never 
+     * sets the overflow or not bits
+     * @return mask of the flag bits
+     */
+    private String getMask() {
+        StringBuilder mask = new StringBuilder();
+        
+        mask.append(memory ? "1" : "0");
+        mask.append("0");
+        mask.append("0");
+        mask.append(carrySet ? "1" : "0");
+        mask.append(negative ? "1" : "0");
+        mask.append(zero ? "1" : "0");
+        
+        return mask.toString();
+    }
+    
+    /**
+     * Original string implementation of MSK
+     * @param xValue Value to mask
+     * @param yValue Mask
+     * @return masked value
+     */
+    private String doMSK(String xValue, String yValue) {
+        while(yValue.length() < xValue.length()) {
+            yValue = yValue + "0";
+        }
+        
+        StringBuilder result = new StringBuilder();
+        for(int i = 0; i < xValue.length(); i++) {
+            if(yValue.charAt(i) == '0') {
+                result.append("0");
+            }else {
+                result.append(xValue.charAt(i));
+            }
+        }
+        
+        return result.toString();
+    }
+    
+    /**
+     * Original string implementation of SHF - the characters shifted out are
+     * left in carry.  Once every character of the value and the carry has 
+     * been shifted out further places change nothing, so long shifts stop 
+     * at SHIFT_LIMIT places
+     * @param xValue Value to shift
+     * @param yValue Number of places to shift
+     * @return shifted value
+     */
+    private String doSHF(String xValue, String yValue) {
+        StringBuilder result = new StringBuilder(xValue);
+        StringBuilder carry = new StringBuilder("0000000000");
+        
+        int shiftAmount = Integer.parseInt(yValue);
+        
+        carrySet = shiftAmount != 0;
+        shiftAmount = (int) Math.max(-SHIFT_LIMIT, Math.min(SHIFT_LIMIT, (long) shiftAmount));
+        
+        if(shiftAmount > 0) {
+            while(shiftAmount > 0) {
+                carry.deleteCharAt(0);
+                carry.append(result.charAt(0));
+                result.deleteCharAt(0);
+                result.append("0");
+                
+                shiftAmount--;
+            }
+        }else {
+            while(shiftAmount < 0) {
+                carry.insert(0, result.charAt(result.length() - 1));
+                carry.deleteCharAt(carry.length() - 1);
+                result.deleteCharAt(result.length() - 1);
+                result.insert(0, "0");
+                
+                shiftAmount++;
+            }
+        }
+        
+        this.carry = carry.toString();
+        
+        return result.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+
+import java.util.*;
+
+/**
+ * Checks that an ExecutionJournal of the largest memory restores the state
+ * after any instruction, seeking both backwards and forwards across many
+ * checkpoints, and after execution continues from an earlier instruction.
+ * Writes are spread over pages across the whole memory
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ExecutionJournalTest {
+    
+    // Largest memory which can be addressed
+    private static final int SIZE = Integer.MAX_VALUE;
+    
+    // Number of instructions executed
+    private static final int INSTRUCTIONS = 200;
+    
+    // Instructions between checkpoints
+    private static final int INTERVAL = 16;
+    
+    // Addresses written by the instructions (several per page)
+    private int[] addresses;
+    
+    // Words at each address and the PC after each instruction - indexed by instruction number
+    private int[][] expected;
+    
+    // Journaled components of the computer
+    private RegisterStore registers;
+    private Memory memory;
+    
+    // Journal being checked
+    private ExecutionJournal journal;
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     */
+    public static void main(String[] arguments) {
+        new ExecutionJournalTest().run();
+    }
+    
+    /**
+     * Executes the instructions, seeks to every instruction in a random order,
+     * then continues from the middle and seeks again
+     */
+    public void run() {
+        AbstractComputer computer = new AbsoluteAddressComputer(SIZE);
+        
+        registers = computer.registerStore;
+        memory = computer.getMemory();
+        journal = new ExecutionJournal(registers, memory, INTERVAL,
+                INSTRUCTIONS / INTERVAL + 1, 1 << 12);
+        
+        registers.setJournal(journal);
+        memory.setJournal(journal);
+        
+        addresses = new int[INSTRUCTIONS];
+        for(int i = 0; i < INSTRUCTIONS; i++) {
+            // Pages far apart, the last page and neighbouring addresses
+            addresses[i] = (int) ((i % 13) * (SIZE / 13L) + (i % 3) * 7);
+        }
+        addresses[INSTRUCTIONS - 1] = SIZE - 1;
+        
+        expected = new int[INSTRUCTIONS + 1][];
+        expected[0] = capture();
+        
+        execute(0, 1);
+        seekAll(new Random(1));
+        
+        // Execution continuing from an earlier instruction replaces the later ones
+        check(journal.seek(INSTRUCTIONS / 2 + 5), "seek to " + (INSTRUCTIONS / 2 + 5));
+        execute(INSTRUCTIONS / 2 + 5, 2);
+        seekAll(new Random(2));
+    }
+    
+    /**
+     * Executes the instructions from the given instruction to INSTRUCTIONS,
+     * recording the state after each
+     * @param from Instruction number to start at
+     * @param seed Varies the words written
+     */
+    private void execute(int from, int seed) {
+        for(int i = from; i < INSTRUCTIONS; i++) {
+            journal.beginInstruction();
+            
+            registers.write(Register.PC, i + 1);
+            memory.write(addresses[i], (i + 1) * seed);
+            memory.write(addresses[(i * 7) % INSTRUCTIONS], -i * seed);
+            
+            expected[i + 1] = capture();
+        }
+    }
+    
+    /**
+     * Seeks to every instruction in a random order, checking the state
+     * @param random Order of the instructions
+     */
+    private void seekAll(Random random) {
+        List<Integer> targets = new ArrayList<Integer>();
+        for(int i = 0; i <= INSTRUCTIONS; i++) {
+            targets.add(i);
+            targets.add(i);
+        }
+        Collections.shuffle(targets, random);
+        
+        for(int target : targets) {
+            check(journal.seek(target), "seek to " + target);
+            check(Arrays.equals(capture(), expected[target]), "state after seeking to " + target);
+        }
+        
+        check(journal.seek(INSTRUCTIONS), "seek to the tip");
+    }
+    
+    /**
+     * Returns the PC and the words at all the written addresses
+     * @return current state
+     */
+    private int[] capture() {
+        int[] state = new int[addresses.length + 1];
+        
+        state[0] = registers.getWord(Register.PC);
+        for(int i = 0; i < addresses.length; i++) {
+            state[i + 1] = memory.read(addresses[i]);
+        }
+        
+        return state;
+    }
+    
+    /**
+     * Fails the check if the condition is not met
+     * @param condition Result of the check
+     * @param what Description of the check
+     */
+    private static void check(boolean condition, String what) {
+        if(!condition) {
+            throw new AssertionError("Journal failed " + what);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package uk.ac.hud.postroom.computer;
+
+import java.io.*;
+
+/**
+ * Checks that forks of a memory mapped image are independent copies of the
+ * image when they were forked, and that bulk loads from several threads 
+ * each reach their own addresses
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class MappedWordStoreTest {
+    
+    // Words in the image (several pages)
+    private static final int SIZE = 1 << 16;
+    
+    // Words in an image far larger than the heap the checks run with
+    private static final int LARGE_SIZE = 1 << 27;
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     * @throws Exception if the image can not be mapped
+     */
+    public static void main(String[] arguments) throws Exception {
+        new MappedWordStoreTest().run();
+    }
+    
+    /**
+     * Maps a temporary image and runs the checks against it
+     * @throws Exception if the image can not be mapped
+     */
+    public void run() throws Exception {
+        checkFork(new MappedWordStore(createImageFile(), SIZE));
+        checkConcurrentLoads(new MappedWordStore(createImageFile(), SIZE));
+        checkLargeFork(new MappedWordStore(createImageFile(), LARGE_SIZE));
+    }
+    
+    /**
+     * Creates an empty temporary image file
+     * @return image file
+     * @throws IOException if the file can not be created
+     */
+    private static File createImageFile() throws IOException {
+        File file = File.createTempFile("image", ".pcm");
+        file.deleteOnExit();
+        
+        return file;
+    }
+    
+    /**
+     * Forks the image and writes to both the image and the fork
+     * @param image Mapped image
+     */
+    private void checkFork(MappedWordStore image) {
+        image.write(0, 1);
+        image.write(5000, 2);
+        image.load(SIZE - 3, new int[]{3, 4, 5});
+        
+        WordStore fork = image.fork();
+        WordStore forkOfFork = fork.fork();
+        
+        // Written by the image before the forks read them
+        image.write(5000, -2);
+        image.load(SIZE - 2, new int[]{-4, -5});
+        
+        // Written by the fork
+        fork.write(0, -1);
+        fork.write(SIZE - 1, 50);
+        
+        assertEquals("image M[0]", 1, image.read(0));
+        assertEquals("image M[5000]", -2, image.read(5000));
+        assertEquals("image M[" + (SIZE - 1) + "]", -5, image.read(SIZE - 1));
+        
+        assertEquals("fork M[0]", -1, fork.read(0));
+        assertEquals("fork M[5000]", 2, fork.read(5000));
+        assertEquals("fork M[" + (SIZE - 2) + "]", 4, fork.read(SIZE - 2));
+        assertEquals("fork M[" + (SIZE - 1) + "]", 50, fork.read(SIZE - 1));
+        
+        assertEquals("fork of fork M[0]", 1, forkOfFork.read(0));
+        assertEquals("fork of fork M[5000]", 2, forkOfFork.read(5000));
+        assertEquals("fork of fork M[" + (SIZE - 1) + "]", 5, forkOfFork.read(SIZE - 1));
+        
+        // Cleared forks no longer read the image
+        fork.clear();
+        assertEquals("cleared fork M[5000]", 0, fork.read(5000));
+    }
+    
+    /**
+     * Forks a large image - only the pages used are copied
+     * @param image Empty mapped image of LARGE_SIZE words
+     */
+    private void checkLargeFork(MappedWordStore image) {
+        int last = LARGE_SIZE - 1;
+        
+        image.write(last, 7);
+        
+        WordStore fork = image.fork();
+        image.write(last, 8);
+        
+        assertEquals("large fork M[" + last + "]", 7, fork.read(last));
+        assertEquals("large image M[" + last + "]", 8, image.read(last));
+    }
+    
+    /**
+     * Loads words into separate parts of the image from several threads
+     * @param image Empty mapped image
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    private void checkConcurrentLoads(final MappedWordStore image) throws InterruptedException {
+        final int threadCount = 4;
+        final int span = SIZE / threadCount;
+        final int length = 64;
+        final Throwable[] failures = new Throwable[threadCount];
+        
+        Thread[] threads = new Thread[threadCount];
+        for(int t = 0; t < threadCount; t++) {
+            final int thread = t;
+            
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        int[] words = new int[length];
+                        
+                        for(int i = 0; i < 50000; i++) {
+                            int address = thread * span + (i * 31) % (span - length);
+                            
+                            for(int j = 0; j < length; j++) {
+                                words[j] = address + j;
+                            }
+                            
+                            image.load(address, words);
+                        }
+                    }catch (Throwable e) {
+                        failures[thread] = e;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        
+        for(int t = 0; t < threadCount; t++) {
+            threads[t].join();
+            
+            if(failures[t] != null) {
+                throw new AssertionError("Load failed: " + failures[t]);
+            }
+        }
+        
+        // Every loaded word holds its own address
+        for(int address = 0; address < SIZE; address++) {
+            int word = image.read(address);
+            
+            if(word != 0 && word != address) {
+                throw new AssertionError("M[" + address + "] was " + word + " - loaded at the wrong address");
+            }
+        }
+    }
+    
+    /**
+     * Checks that the actual value equals the expected value
+     * @param what Description of the value
+     * @param expected Expected value
+     * @param actual Actual value
+     */
+    private static void assertEquals(String what, int expected, int actual) {
+        if(expected != actual) {
+            throw new AssertionError(what + " was " + actual + ", expected " + expected);
+        }
+    }
+}
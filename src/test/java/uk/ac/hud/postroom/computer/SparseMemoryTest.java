@@ -0,0 +1,180 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+import uk.ac.hud.postroom.assembler.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Checks that computers with the largest memory can be built and run when
+ * only a few addresses are used.  Every per-address structure (words, decode
+ * caches, compiled blocks, threaded code and watch points) must be paged -
+ * the checks run with a heap far smaller than one word per address
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class SparseMemoryTest {
+    
+    // Largest memory which can be addressed
+    private static final int SIZE = Integer.MAX_VALUE;
+    
+    // Counts the word at 50 down to zero
+    private static final String PROGRAM =
+            ":loop: SUB 50 51\n" +
+            "JMP NEZ :loop:\n" +
+            "HLT\n" +
+            ":50: (1000)\n" +
+            ":51: (1)\n";
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     * @throws Exception if the program can not be assembled
+     */
+    public static void main(String[] arguments) throws Exception {
+        new SparseMemoryTest().run();
+    }
+    
+    /**
+     * Runs the program on each absolute address computer with the largest
+     * memory, then writes and watches addresses at the far end of memory
+     * @throws Exception if the program can not be assembled
+     */
+    public void run() throws Exception {
+        File file = File.createTempFile("sparse", ".pca");
+        file.deleteOnExit();
+        
+        Assembler assembler = new AbsoluteAddressAssembler();
+        assembler.assemble(new SourceFile(file.getPath(), PROGRAM));
+        
+        // A word at the last address (beyond the addresses labels can give)
+        Instruction[] assembled = assembler.getInstructions();
+        Instruction[] instructions = Arrays.copyOf(assembled, assembled.length + 1);
+        
+        Instruction last = new Instruction(assembled[assembled.length - 1], 42, 0);
+        last.setMemoryLocation(SIZE - 1);
+        instructions[assembled.length] = last;
+        
+        check(new AbsoluteAddressComputer(SIZE), instructions);
+        check(new BlockCompilingComputer(SIZE), instructions);
+        check(new ThreadedCodeComputer(SIZE), instructions);
+    }
+    
+    /**
+     * Runs the program on the given computer and uses the far end of its memory
+     * @param computer Computer with the largest memory
+     * @param instructions Assembled program
+     * @throws Exception if interrupted while waiting for the program or the
+     * state of the computer can not be decoded
+     */
+    private void check(AbstractComputer computer, Instruction[] instructions) throws Exception {
+        String name = computer.getClass().getSimpleName();
+        Memory memory = computer.getMemory();
+        
+        computer.setInstructions(instructions);
+        computer.setExecutionSpeed(ExecutionSpeed.FULL);
+        computer.execute();
+        
+        long deadline = System.currentTimeMillis() + 10000;
+        while(computer.getRunState() != RunState.STOPPED) {
+            if(System.currentTimeMillis() > deadline) {
+                throw new AssertionError(name + " did not stop");
+            }
+            
+            Thread.sleep(10);
+        }
+        
+        assertEquals(name + " M[50]", 0, memory.read(50));
+        
+        // Addresses far beyond the program
+        int last = SIZE - 1;
+        
+        assertEquals(name + " M[" + last + "]", 42, memory.read(last));
+        if(computer.getInstructionAt(last) == null || computer.getInstructionAt(last - 1) != null) {
+            throw new AssertionError(name + " did not map the instruction at " + last);
+        }
+        
+        memory.setWatchPoint(last, true);
+        memory.write(last - 1, 7);
+        assertEquals(name + " unwatched write", -1, memory.takeWatchHit());
+        
+        memory.write(last, 9);
+        assertEquals(name + " watched write", last, memory.takeWatchHit());
+        assertEquals(name + " M[" + last + "]", 9, memory.read(last));
+        
+        memory.clearWatchPoints();
+        if(memory.isWatchPoint(last)) {
+            throw new AssertionError(name + " watch point was not cleared");
+        }
+        
+        DecodeCache cache = memory.getDecodeCache();
+        DecodedInstruction instruction = cache.get(0);
+        if(instruction == null) {
+            throw new AssertionError(name + " did not cache the instruction at 0");
+        }
+        
+        cache.put(last, instruction);
+        if(cache.get(last) != instruction) {
+            throw new AssertionError(name + " did not cache an instruction at " + last);
+        }
+        
+        memory.write(last, 0);
+        if(cache.get(last) != null) {
+            throw new AssertionError(name + " did not invalidate the instruction at " + last);
+        }
+        
+        checkState(computer);
+    }
+    
+    /**
+     * Captures the state of the computer, saves and loads it, then restores 
+     * it to a new computer and back to the computer after changing memory
+     * @param computer Computer with the largest memory (stopped)
+     * @throws IOException if the saved state can not be decoded
+     */
+    private void checkState(AbstractComputer computer) throws IOException {
+        String name = computer.getClass().getSimpleName();
+        Memory memory = computer.getMemory();
+        int last = SIZE - 1;
+        
+        memory.write(last, 9);
+        ComputerState state = ComputerState.fromByteArray(computer.snapshot().toByteArray());
+        
+        assertEquals(name + " state size", SIZE, state.getMemorySize());
+        assertEquals(name + " state M[" + last + "]", 9, state.getWord(last));
+        assertEquals(name + " state M[51]", 1, state.getWord(51));
+        assertEquals(name + " state M[" + (last - 1) + "]", 7, state.getWord(last - 1));
+        assertEquals(name + " state M[1000000]", 0, state.getWord(1000000));
+        
+        // The captured pages must not change with the memory
+        ComputerState captured = computer.snapshot();
+        memory.write(last, 3);
+        memory.write(1000000, 3);
+        assertEquals(name + " captured M[" + last + "]", 9, captured.getWord(last));
+        
+        AbstractComputer restored = new AbsoluteAddressComputer(SIZE);
+        restored.restore(state);
+        
+        Memory restoredMemory = restored.getMemory();
+        assertEquals(name + " restored M[" + last + "]", 9, restoredMemory.read(last));
+        assertEquals(name + " restored M[1000000]", 0, restoredMemory.read(1000000));
+        assertEquals(name + " restored PC", computer.getRegisterStore().getWord(Register.PC),
+                restored.getRegisterStore().getWord(Register.PC));
+        
+        // Writes after restoring do not change the state
+        restoredMemory.write(last, 4);
+        assertEquals(name + " state M[" + last + "] after a write", 9, state.getWord(last));
+    }
+    
+    /**
+     * Checks that the actual value equals the expected value
+     * @param what Description of the value
+     * @param expected Expected value
+     * @param actual Actual value
+     */
+    private static void assertEquals(String what, int expected, int actual) {
+        if(expected != actual) {
+            throw new AssertionError(what + " was " + actual + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.hud.postroom.computer;
+
+import uk.ac.hud.postroom.*;
+import uk.ac.hud.postroom.assembler.*;
+import uk.ac.hud.postroom.event.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Checks that many computers can wait for input at the same time.  Every
+ * computer runs on a thread from the factory given to setThreadFactory (the
+ * default factory, which gives virtual threads on Java 21+ and platform
+ * threads otherwise) and waits in IODevice.requestInput until all of them
+ * are waiting, then they are released and must all finish cleanly
+ * @author Richard Walton (c0410542@hud.ac.uk)
+ */
+public class ThreadFactoryTest {
+    
+    // Number of computers waiting at once
+    private static final int COMPUTERS = 10000;
+    
+    // Memory of each computer
+    private static final int SIZE = 64;
+    
+    // Longest wait for all the computers to wait for input or to stop
+    private static final long TIMEOUT = 120000;
+    
+    // Echoes one word of input
+    private static final String PROGRAM =
+            "INP 50\n" +
+            "OUT 50\n" +
+            "HLT\n";
+    
+    /**
+     * Runs the checks
+     * @param arguments Not used
+     * @throws Exception if the program can not be assembled
+     */
+    public static void main(String[] arguments) throws Exception {
+        new ThreadFactoryTest().run();
+    }
+    
+    /**
+     * Starts all the computers, checks they are all waiting for input, then
+     * releases them and checks they all stop with their own input as output
+     * @throws Exception if the program can not be assembled
+     */
+    public void run() throws Exception {
+        File file = File.createTempFile("threads", ".pca");
+        file.deleteOnExit();
+        
+        Assembler assembler = new AbsoluteAddressAssembler();
+        assembler.assemble(new SourceFile(file.getPath(), PROGRAM));
+        Instruction[] instructions = assembler.getInstructions();
+        
+        final CountDownLatch waiting = new CountDownLatch(COMPUTERS);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger created = new AtomicInteger();
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        
+        final Thread[] inputThreads = new Thread[COMPUTERS];
+        final String[] outputs = new String[COMPUTERS];
+        AbstractComputer[] computers = new AbstractComputer[COMPUTERS];
+        
+        ComputerListener listener = new ComputerAdapter() {
+            public void computerError(Computer computer, Throwable error) {
+                errors.add(error);
+            }
+        };
+        
+        for(int i = 0; i < COMPUTERS; i++) {
+            final int index = i;
+            AbstractComputer computer = new AbsoluteAddressComputer(SIZE);
+            
+            // Counts the threads made by the default factory
+            final ThreadFactory factory = computer.getThreadFactory();
+            computer.setThreadFactory(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    created.incrementAndGet();
+                    return factory.newThread(runnable);
+                }
+            });
+            
+            computer.getIOModule().setIODevice(new IODevice() {
+                public String requestInput() {
+                    inputThreads[index] = Thread.currentThread();
+                    waiting.countDown();
+                    
+                    try {
+                        release.await();
+                    }catch (InterruptedException e) {
+                        errors.add(e);
+                    }
+                    
+                    return Integer.toString(index);
+                }
+                
+                public void showOutput(String output) {
+                    outputs[index] = output;
+                }
+            });
+            
+            computer.addComputerListener(listener);
+            computer.setInstructions(instructions);
+            computer.setExecutionSpeed(ExecutionSpeed.FULL);
+            computer.execute();
+            
+            computers[i] = computer;
+        }
+        
+        try {
+            check(waiting.await(TIMEOUT, TimeUnit.MILLISECONDS),
+                    COMPUTERS - waiting.getCount() + " computers waiting for input");
+            check(created.get() == COMPUTERS, created.get() + " threads created");
+            
+            for(int i = 0; i < COMPUTERS; i++) {
+                Thread.State state = inputThreads[i].getState();
+                
+                check(computers[i].getRunState() == RunState.RUNNING,
+                        "computer " + i + " " + computers[i].getRunState() + " while waiting for input");
+                check(state == Thread.State.WAITING || state == Thread.State.BLOCKED,
+                        "computer " + i + " thread " + state + " while waiting for input");
+            }
+        }finally {
+            release.countDown();
+        }
+        
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        for(int i = 0; i < COMPUTERS; i++) {
+            while(computers[i].getRunState() != RunState.STOPPED) {
+                check(System.currentTimeMillis() < deadline, "computer " + i + " stopped");
+                Thread.sleep(10);
+            }
+            
+            inputThreads[i].join(Math.max(1, deadline - System.currentTimeMillis()));
+            check(!inputThreads[i].isAlive(), "computer " + i + " thread finished");
+            check(Integer.toString(i).equals(outputs[i]), "computer " + i + " output " + outputs[i]);
+        }
+        
+        check(errors.isEmpty(), errors.size() + " errors" + (errors.isEmpty() ? "" : ", first: " + errors.get(0)));
+        check(created.get() == COMPUTERS, created.get() + " threads created");
+    }
+    
+    /**
+     * Fails the check if the condition is not met
+     * @param condition Result of the check
+     * @param what Description of the check
+     */
+    private static void check(boolean condition, String what) {
+        if(!condition) {
+            throw new AssertionError("Thread factory check failed: " + what);
+        }
+    }
+}